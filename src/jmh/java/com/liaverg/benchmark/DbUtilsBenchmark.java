@@ -0,0 +1,133 @@
+package com.liaverg.benchmark;
+
+import com.liaverg.config.DataSourceProvider;
+import com.liaverg.config.PoolSettings;
+import com.liaverg.config.QueryLogSettings;
+import com.liaverg.utilities.DbUtils;
+import com.liaverg.utilities.StatementCache;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DbUtilsBenchmark {
+    private static final String JDBC_URL = "jdbc:h2:mem:benchmark;MODE=PostgreSQL;DB_CLOSE_DELAY=-1";
+    private static final int LEAK_DETECTION_THRESHOLD = 0;
+    private static final String INSERT_SQL = "INSERT INTO users_directory.users (username, email) VALUES (?, ?)";
+    private static final String COUNT_SQL = "SELECT count(*) FROM users_directory.users WHERE username = ?";
+
+    @Param({"raw", "sampled", "verbose"})
+    public String dataSourceType;
+
+    private DataSourceProvider dataSourceProvider;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        QueryLogSettings.Mode queryLogMode = "verbose".equals(dataSourceType)
+                ? QueryLogSettings.Mode.VERBOSE
+                : QueryLogSettings.Mode.SAMPLED;
+        dataSourceProvider = new DataSourceProvider(JDBC_URL, "sa", "", LEAK_DETECTION_THRESHOLD, false,
+                StatementCache.DEFAULT_SIZE, new QueryLogSettings(queryLogMode,
+                QueryLogSettings.DEFAULT.slowQueryThresholdMillis(), QueryLogSettings.DEFAULT.sampleRate()),
+                PoolSettings.DEFAULT);
+        try (Connection conn = dataSourceProvider.getHikariDataSource().getConnection();
+             Statement statement = conn.createStatement()) {
+            statement.execute("CREATE SCHEMA IF NOT EXISTS users_directory");
+            statement.execute("CREATE TABLE IF NOT EXISTS users_directory.users("
+                    + "user_id SERIAL PRIMARY KEY, username VARCHAR(25), email VARCHAR(25))");
+        }
+        new DbUtils("raw".equals(dataSourceType)
+                ? dataSourceProvider.getHikariDataSource()
+                : dataSourceProvider.getHikariProxyDataSource());
+    }
+
+    @Setup(Level.Iteration)
+    public void truncateTable() throws SQLException {
+        try (Connection conn = dataSourceProvider.getHikariDataSource().getConnection();
+             Statement statement = conn.createStatement()) {
+            statement.execute("TRUNCATE TABLE users_directory.users");
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        dataSourceProvider.close();
+    }
+
+    private static void insertUser(Connection conn, String username, String email) throws SQLException {
+        try (PreparedStatement insertStatement = conn.prepareStatement(INSERT_SQL)) {
+            insertStatement.setString(1, username);
+            insertStatement.setString(2, email);
+            insertStatement.executeUpdate();
+        }
+    }
+
+    private static int countUsers(Connection conn, String username) throws SQLException {
+        try (PreparedStatement countStatement = conn.prepareStatement(COUNT_SQL)) {
+            countStatement.setString(1, username);
+            try (ResultSet resultSet = countStatement.executeQuery()) {
+                resultSet.next();
+                return resultSet.getInt(1);
+            }
+        }
+    }
+
+    @Benchmark
+    public void executeStatements() {
+        DbUtils.executeStatements(conn -> insertUser(conn, "john_doe", "john.doe@example.com"));
+    }
+
+    @Benchmark
+    public void executeStatementsInTransaction() {
+        DbUtils.executeStatementsInTransaction(conn -> insertUser(conn, "john_doe", "john.doe@example.com"));
+    }
+
+    @Benchmark
+    public void executeNestedTransactions() {
+        DbUtils.executeStatementsInTransaction(conn -> {
+            DbUtils.executeStatementsInTransaction(connection ->
+                    insertUser(connection, "john_doe", "john.doe@example.com"));
+            insertUser(conn, "jane_doe", "jane.doe@example.com");
+        });
+    }
+
+    @Benchmark
+    public int executeStatementsInTransactionWithResult() {
+        return DbUtils.executeStatementsInTransactionWithResult(conn -> countUsers(conn, "john_doe"));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(DbUtilsBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
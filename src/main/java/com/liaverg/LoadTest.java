@@ -0,0 +1,254 @@
+package com.liaverg;
+
+import com.liaverg.config.DataSourceProvider;
+import com.liaverg.config.PoolSettings;
+import com.liaverg.config.PropertiesReader;
+import com.liaverg.config.QueryLogSettings;
+import com.liaverg.metrics.DbMetrics;
+import com.liaverg.metrics.LatencyRecorder;
+import com.liaverg.metrics.LatencySnapshot;
+import com.liaverg.utilities.DbUtils;
+import com.liaverg.utilities.DbUtils.Propagation;
+import com.liaverg.utilities.StatementCache;
+
+import java.lang.reflect.Method;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+public class LoadTest {
+    private enum Operation {INSERT, UPDATE, SELECT}
+
+    private static final class OperationStats {
+        private final LatencyRecorder latency = new LatencyRecorder(Runtime.getRuntime().availableProcessors());
+        private final LongAdder errors = new LongAdder();
+    }
+
+    private final Map<Operation, OperationStats> stats = new HashMap<>();
+    private final AtomicLong insertedUsers = new AtomicLong();
+    private final int insertWeight;
+    private final int updateWeight;
+    private final int selectWeight;
+    private final double nestedRatio;
+
+    private LoadTest(int insertWeight, int updateWeight, int selectWeight, double nestedRatio) {
+        this.insertWeight = insertWeight;
+        this.updateWeight = updateWeight;
+        this.selectWeight = selectWeight;
+        this.nestedRatio = nestedRatio;
+        for (Operation operation : Operation.values()) {
+            stats.put(operation, new OperationStats());
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseOptions(args);
+        PropertiesReader propertiesReader = new PropertiesReader();
+        String url = options.getOrDefault("url", propertiesReader.getJdbcUrl());
+        int threads = Integer.parseInt(options.getOrDefault("threads", "32"));
+        boolean virtualThreads = Boolean.parseBoolean(options.getOrDefault("virtual", "false"));
+        long durationSeconds = Long.parseLong(options.getOrDefault("durationSeconds", "60"));
+        long reportIntervalSeconds = Long.parseLong(options.getOrDefault("reportIntervalSeconds", "10"));
+        int poolSize = Integer.parseInt(options.getOrDefault("poolSize", "10"));
+        String[] mix = options.getOrDefault("mix", "20:20:60").split(":");
+
+        PoolSettings defaults = PoolSettings.DEFAULT;
+        DataSourceProvider dataSourceProvider = new DataSourceProvider(
+                url,
+                options.getOrDefault("user", propertiesReader.getUser()),
+                options.getOrDefault("password", propertiesReader.getPassword()),
+                Integer.parseInt(options.getOrDefault("leakDetectionThreshold",
+                        String.valueOf(propertiesReader.getLeakDetectionThreshold()))),
+                propertiesReader.isReWriteBatchedInserts(),
+                StatementCache.DEFAULT_SIZE,
+                new QueryLogSettings(QueryLogSettings.Mode.OFF, 0, 0),
+                new PoolSettings(poolSize, poolSize,
+                        Long.parseLong(options.getOrDefault("connectionTimeout", "30000")),
+                        defaults.idleTimeoutMillis(), defaults.maxLifetimeMillis(), defaults.keepaliveTimeMillis(),
+                        defaults.validationTimeoutMillis(), defaults.initializationFailTimeoutMillis(),
+                        new Properties()));
+        new DbUtils(dataSourceProvider.getHikariProxyDataSource());
+        DbUtils.executeStatements(LoadTest::createSchema);
+
+        LoadTest loadTest = new LoadTest(Integer.parseInt(mix[0]), Integer.parseInt(mix[1]), Integer.parseInt(mix[2]),
+                Double.parseDouble(options.getOrDefault("nestedRatio", "0.1")));
+        System.out.printf("Running %d %s threads for %d s against %s (pool size %d, mix %s)%n", threads,
+                virtualThreads ? "virtual" : "platform", durationSeconds, url, poolSize, String.join(":", mix));
+        loadTest.run(threads, virtualThreads, durationSeconds, reportIntervalSeconds);
+        dataSourceProvider.close();
+    }
+
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (separator <= 0) {
+                throw new IllegalArgumentException("Expected key=value argument: " + arg);
+            }
+            options.put(arg.substring(0, separator), arg.substring(separator + 1));
+        }
+        return options;
+    }
+
+    private static void createSchema(Connection conn) throws SQLException {
+        try (Statement statement = conn.createStatement()) {
+            statement.execute("CREATE SCHEMA IF NOT EXISTS users_directory");
+            statement.execute("CREATE TABLE IF NOT EXISTS users_directory.users("
+                    + "user_id SERIAL PRIMARY KEY, username VARCHAR(25), email VARCHAR(25))");
+        }
+    }
+
+    private void run(int threads, boolean virtualThreads, long durationSeconds, long reportIntervalSeconds)
+            throws InterruptedException {
+        DbMetrics.getInstance().reset();
+        ExecutorService executor = virtualThreads ? newVirtualThreadExecutor() : Executors.newFixedThreadPool(threads);
+        long startNanos = System.nanoTime();
+        long deadline = startNanos + TimeUnit.SECONDS.toNanos(durationSeconds);
+        for (int i = 0; i < threads; i++) {
+            executor.execute(() -> {
+                while (System.nanoTime() < deadline) {
+                    execute(nextOperation());
+                }
+            });
+        }
+        executor.shutdown();
+        long previousOperations = 0;
+        long previousNanos = startNanos;
+        while (!executor.awaitTermination(reportIntervalSeconds, TimeUnit.SECONDS)) {
+            long operations = operationCount();
+            long now = System.nanoTime();
+            System.out.printf("[%4d s] %10.1f ops/s, %d errors%n", TimeUnit.NANOSECONDS.toSeconds(now - startNanos),
+                    (operations - previousOperations) * 1e9 / (now - previousNanos), errorCount());
+            previousOperations = operations;
+            previousNanos = now;
+        }
+        report(System.nanoTime() - startNanos);
+    }
+
+    private Operation nextOperation() {
+        int choice = ThreadLocalRandom.current().nextInt(insertWeight + updateWeight + selectWeight);
+        if (choice < insertWeight) {
+            return Operation.INSERT;
+        }
+        return choice < insertWeight + updateWeight ? Operation.UPDATE : Operation.SELECT;
+    }
+
+    private void execute(Operation operation) {
+        OperationStats operationStats = stats.get(operation);
+        long startNanos = System.nanoTime();
+        try {
+            switch (operation) {
+                case INSERT -> insert();
+                case UPDATE -> update();
+                case SELECT -> select();
+            }
+        } catch (RuntimeException e) {
+            operationStats.errors.increment();
+        } finally {
+            operationStats.latency.recordNanos(System.nanoTime() - startNanos);
+        }
+    }
+
+    private void insert() {
+        long user = insertedUsers.getAndIncrement();
+        boolean nested = ThreadLocalRandom.current().nextDouble() < nestedRatio;
+        DbUtils.executeStatementsInTransaction(conn -> {
+            insertUser(conn, user);
+            if (nested) {
+                long innerUser = insertedUsers.getAndIncrement();
+                DbUtils.executeStatementsInTransaction(inner -> insertUser(inner, innerUser), Propagation.NESTED);
+            }
+        });
+    }
+
+    private void update() {
+        long user = randomInsertedUser();
+        DbUtils.executeStatementsInTransaction(conn -> {
+            String updateSQL = "UPDATE users_directory.users SET email = ? WHERE username = ?";
+            try (PreparedStatement updateStatement = conn.prepareStatement(updateSQL)) {
+                updateStatement.setString(1, "updated_" + user + "@ex.com");
+                updateStatement.setString(2, "load_" + user);
+                updateStatement.executeUpdate();
+            }
+        });
+    }
+
+    private void select() {
+        long user = randomInsertedUser();
+        DbUtils.executeReadOnly(conn -> {
+            String selectSQL = "SELECT user_id, email FROM users_directory.users WHERE username = ?";
+            try (PreparedStatement selectStatement = conn.prepareStatement(selectSQL)) {
+                selectStatement.setString(1, "load_" + user);
+                try (ResultSet resultSet = selectStatement.executeQuery()) {
+                    return resultSet.next() ? resultSet.getString("email") : null;
+                }
+            }
+        });
+    }
+
+    private static void insertUser(Connection conn, long user) throws SQLException {
+        String insertSQL = "INSERT INTO users_directory.users (username, email) VALUES (?, ?)";
+        try (PreparedStatement insertStatement = conn.prepareStatement(insertSQL)) {
+            insertStatement.setString(1, "load_" + user);
+            insertStatement.setString(2, "load_" + user + "@ex.com");
+            insertStatement.executeUpdate();
+        }
+    }
+
+    private long randomInsertedUser() {
+        return ThreadLocalRandom.current().nextLong(Math.max(1, insertedUsers.get()));
+    }
+
+    private long operationCount() {
+        return stats.values().stream().mapToLong(operationStats -> operationStats.latency.snapshot().getCount()).sum();
+    }
+
+    private long errorCount() {
+        return stats.values().stream().mapToLong(operationStats -> operationStats.errors.sum()).sum();
+    }
+
+    private void report(long elapsedNanos) {
+        double seconds = elapsedNanos / 1e9;
+        System.out.printf("%nCompleted %d operations in %.1f s: %.1f ops/s%n", operationCount(), seconds,
+                operationCount() / seconds);
+        System.out.printf("%-8s %10s %10s %10s %10s %10s %10s%n", "op", "count", "errors", "error %", "p50 us",
+                "p99 us", "p999 us");
+        for (Operation operation : Operation.values()) {
+            OperationStats operationStats = stats.get(operation);
+            LatencySnapshot latency = operationStats.latency.snapshot();
+            long errors = operationStats.errors.sum();
+            System.out.printf("%-8s %10d %10d %10.2f %10d %10d %10d%n", operation, latency.getCount(), errors,
+                    latency.getCount() == 0 ? 0.0 : 100.0 * errors / latency.getCount(), latency.getP50Micros(),
+                    latency.getP99Micros(), latency.getP999Micros());
+        }
+        DbMetrics metrics = DbMetrics.getInstance();
+        LatencySnapshot connectionWait = metrics.getConnectionAcquisitionLatency();
+        System.out.printf("connection wait: p50 %d us, p99 %d us, p999 %d us, max %d us, %d timeouts%n",
+                connectionWait.getP50Micros(), connectionWait.getP99Micros(), connectionWait.getP999Micros(),
+                connectionWait.getMaxMicros(), metrics.getConnectionTimeoutCount());
+        System.out.printf("transactions: %d commits, %d rollbacks, %d retries%n", metrics.getCommitCount(),
+                metrics.getRollbackCount(), metrics.getRetryCount());
+    }
+
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException("Virtual threads require Java 21 or newer", e);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Unable to create virtual thread executor", e);
+        }
+    }
+}
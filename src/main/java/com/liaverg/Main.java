@@ -1,16 +1,24 @@
 package com.liaverg;
 
 import com.liaverg.config.AppConfig;
+import com.liaverg.utilities.ColumnarResult;
+import com.liaverg.utilities.CopyExporter;
+import com.liaverg.utilities.CopyLoader;
 import com.liaverg.utilities.DbUtils;
 import com.liaverg.utilities.DbUtils.ConnectionConsumer;
 import com.liaverg.utilities.DbUtils.ConnectionFunction;
+import com.liaverg.utilities.DbUtils.ParameterBinder;
+import com.liaverg.utilities.TypedRowMapper;
 import com.liaverg.config.DataSourceProvider;
 
+import java.nio.file.Path;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.HashSet;
+import java.util.List;
+import java.util.stream.Stream;
 
 public class Main {
     private static void insertUser(Connection conn, String username, String email) throws SQLException {
@@ -26,6 +34,20 @@ public class Main {
         insertUser(conn, "jane_doe", "jane.doe@example.com");
     };
 
+    private static ParameterBinder userBinder(String username, String email) {
+        return statement -> {
+            statement.setString(1, username);
+            statement.setString(2, email);
+        };
+    }
+
+    private static void insertUsersInBatch() {
+        String insertSQL = "INSERT INTO users_directory.users (username, email) VALUES (?, ?)";
+        DbUtils.executeBatch(insertSQL, List.of(
+                userBinder("john_doe", "john.doe@example.com"),
+                userBinder("jane_doe", "jane.doe@example.com")));
+    }
+
     private static final ConnectionConsumer insertUsersWithNestedTransaction = conn -> {
         DbUtils.executeStatementsInTransaction(connection -> {
             insertUser(connection, "john_doe", "john.doe@example.com");
@@ -66,14 +88,49 @@ public class Main {
         }
     };
 
+    private record User(String username, String email) {
+    }
+
+    private static void printUsers() {
+        String selectSQL = "SELECT username, email FROM users_directory.users";
+        try (Stream<User> users = DbUtils.queryStream(selectSQL, TypedRowMapper.of(User.class))) {
+            users.forEach(user -> System.out.println("Username: " + user.username() + "\tEmail: " + user.email()));
+        }
+    }
+
+    private static void exportUsers() {
+        CopyExporter.ExportResult result = CopyExporter.export("users_directory.users", CopyLoader.Format.CSV,
+                Path.of("users.csv.gz"), CopyExporter.Compression.GZIP);
+        System.out.printf("Exported %d users (%d bytes, %.0f bytes/s)%n", result.rowCount(), result.byteCount(),
+                result.bytesPerSecond());
+    }
+
+    private static void printEmailDomains() {
+        String selectSQL = "SELECT user_id, split_part(email, '@', 2) AS domain FROM users_directory.users";
+        ColumnarResult users = DbUtils.queryColumnar(selectSQL, List.of());
+        int userId = users.columnIndex("user_id");
+        int domain = users.columnIndex("domain");
+        ColumnarResult.Cursor cursor = users.cursor();
+        while (cursor.next()) {
+            System.out.println("User ID: " + cursor.getInt(userId) + "\tDomain: " + cursor.getString(domain));
+        }
+        ColumnarResult.Footprint footprint = users.getFootprint();
+        System.out.printf("%d rows in %d bytes (%.1f bytes/row)%n", footprint.rowCount(), footprint.totalBytes(),
+                footprint.bytesPerRow());
+    }
+
     public static void main(String[] args) {
         AppConfig appConfig = new AppConfig();
 
         DbUtils.executeStatementsInTransaction(insertUsersWithNestedTransaction);
 //        DbUtils.executeStatements(insertUsers);
 //        DbUtils.executeStatementsInTransaction(insertUsers);
+//        insertUsersInBatch();
 //        Object updatedRowsCount = DbUtils.executeStatementsInTransactionWithResult(updateUserEmails);
 //        System.out.println("Number of Statements Updated: " + updatedRowsCount);
+//        printUsers();
+//        exportUsers();
+//        printEmailDomains();
         Object usersSet = DbUtils.executeStatementsInTransactionWithResult(selectUsers);
         for (String [] userInfo: (HashSet<String[]>) usersSet){
             System.out.println("Username: " + userInfo[0] + "\tEmail: " + userInfo[1]);
@@ -0,0 +1,16 @@
+package com.liaverg.config;
+
+public record AdaptivePoolSettings(boolean enabled, int minPoolSize, int maxPoolSize, long targetWaitMillis,
+                                   long intervalMillis) {
+    public static final AdaptivePoolSettings DISABLED = new AdaptivePoolSettings(false, 1, 10, 5, 5_000);
+
+    public AdaptivePoolSettings {
+        if (minPoolSize <= 0 || maxPoolSize < minPoolSize) {
+            throw new IllegalArgumentException("Invalid adaptive pool bounds: [" + minPoolSize + ", "
+                    + maxPoolSize + "]");
+        }
+        if (targetWaitMillis < 0 || intervalMillis <= 0) {
+            throw new IllegalArgumentException("Target wait must not be negative and interval must be positive");
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.liaverg.config;
+
+import com.liaverg.metrics.PoolMetricsTracker;
+import com.liaverg.utilities.DbUtils;
+import com.zaxxer.hikari.HikariConfigMXBean;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntConsumer;
+
+public class AdaptivePoolSizer implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(AdaptivePoolSizer.class);
+    private static final double HIGH_UTILIZATION = 0.9;
+    private static final double LOW_UTILIZATION = 0.5;
+    private static final int CALM_INTERVALS_BEFORE_SHRINK = 3;
+    private static final double SATURATED_USAGE_FACTOR = 2.0;
+
+    private final HikariDataSource dataSource;
+    private final PoolMetricsTracker tracker;
+    private final AdaptivePoolSettings settings;
+    private final IntConsumer onResize;
+    private final ScheduledExecutorService scheduler;
+    private long lastAcquisitionCount;
+    private long lastAcquisitionNanos;
+    private long lastUsageCount;
+    private long lastUsageMillis;
+    private long lastTimeoutCount;
+    private int calmIntervals;
+    private double usageMillisAtLastGrowth;
+
+    public AdaptivePoolSizer(HikariDataSource dataSource, PoolMetricsTracker tracker, AdaptivePoolSettings settings) {
+        this(dataSource, tracker, settings, DbUtils::setMaxConcurrency);
+    }
+
+    AdaptivePoolSizer(HikariDataSource dataSource, PoolMetricsTracker tracker, AdaptivePoolSettings settings,
+                      IntConsumer onResize) {
+        int maximumPoolSize = dataSource.getMaximumPoolSize();
+        if (maximumPoolSize < settings.minPoolSize() || maximumPoolSize > settings.maxPoolSize()) {
+            throw new IllegalArgumentException("Configured pool size " + maximumPoolSize
+                    + " is outside the adaptive bounds [" + settings.minPoolSize() + ", " + settings.maxPoolSize()
+                    + "]");
+        }
+        this.dataSource = dataSource;
+        this.tracker = tracker;
+        this.settings = settings;
+        this.onResize = onResize;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "adaptive-pool-sizer-" + dataSource.getPoolName());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public void start() {
+        scheduler.scheduleWithFixedDelay(this::adjust, settings.intervalMillis(), settings.intervalMillis(),
+                TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+
+    void adjust() {
+        try {
+            HikariPoolMXBean pool = dataSource.getHikariPoolMXBean();
+            HikariConfigMXBean config = dataSource.getHikariConfigMXBean();
+            if (pool == null) {
+                return;
+            }
+            long acquisitions = tracker.getAcquisitionCount() - lastAcquisitionCount;
+            long acquisitionNanos = tracker.getAcquisitionNanos() - lastAcquisitionNanos;
+            long usages = tracker.getUsageCount() - lastUsageCount;
+            long usageMillis = tracker.getUsageMillis() - lastUsageMillis;
+            long timeouts = tracker.getTimeoutCount() - lastTimeoutCount;
+            lastAcquisitionCount += acquisitions;
+            lastAcquisitionNanos += acquisitionNanos;
+            lastUsageCount += usages;
+            lastUsageMillis += usageMillis;
+            lastTimeoutCount += timeouts;
+
+            double meanWaitMillis = acquisitions == 0 ? 0 : acquisitionNanos / (double) acquisitions / 1_000_000;
+            double meanUsageMillis = usages == 0 ? 0 : usageMillis / (double) usages;
+            int maximumPoolSize = config.getMaximumPoolSize();
+            int minimumIdle = config.getMinimumIdle();
+            int active = pool.getActiveConnections();
+            int waiting = pool.getThreadsAwaitingConnection();
+            double utilization = (double) active / maximumPoolSize;
+
+            boolean underPressure = timeouts > 0 || waiting > 0
+                    || (meanWaitMillis > settings.targetWaitMillis() && utilization >= HIGH_UTILIZATION);
+            if (underPressure) {
+                calmIntervals = 0;
+                if (usageMillisAtLastGrowth > 0 && meanUsageMillis > usageMillisAtLastGrowth * SATURATED_USAGE_FACTOR) {
+                    logger.info("Pool {} not grown: connection hold time rose from {}ms to {}ms after last growth",
+                            dataSource.getPoolName(), usageMillisAtLastGrowth, meanUsageMillis);
+                    return;
+                }
+                int grownSize = Math.min(settings.maxPoolSize(), maximumPoolSize + Math.max(1, maximumPoolSize / 4));
+                if (grownSize > maximumPoolSize) {
+                    usageMillisAtLastGrowth = meanUsageMillis;
+                    resize(config, grownSize, Math.min(grownSize, Math.max(minimumIdle, active)),
+                            meanWaitMillis, utilization);
+                }
+            } else if (meanWaitMillis <= settings.targetWaitMillis() / 2.0 && utilization < LOW_UTILIZATION) {
+                if (++calmIntervals >= CALM_INTERVALS_BEFORE_SHRINK) {
+                    calmIntervals = 0;
+                    int shrunkSize = Math.max(settings.minPoolSize(), maximumPoolSize - 1);
+                    int shrunkIdle = Math.min(shrunkSize, Math.min(minimumIdle, Math.max(settings.minPoolSize(), active)));
+                    if (shrunkSize < maximumPoolSize || shrunkIdle < minimumIdle) {
+                        usageMillisAtLastGrowth = 0;
+                        resize(config, shrunkSize, shrunkIdle, meanWaitMillis, utilization);
+                    }
+                }
+            } else {
+                calmIntervals = 0;
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Unable to adjust pool {}", dataSource.getPoolName(), e);
+        }
+    }
+
+    private void resize(HikariConfigMXBean config, int maximumPoolSize, int minimumIdle,
+                        double meanWaitMillis, double utilization) {
+        if (maximumPoolSize >= config.getMaximumPoolSize()) {
+            config.setMaximumPoolSize(maximumPoolSize);
+            config.setMinimumIdle(minimumIdle);
+        } else {
+            config.setMinimumIdle(minimumIdle);
+            config.setMaximumPoolSize(maximumPoolSize);
+        }
+        onResize.accept(maximumPoolSize);
+        logger.info("Pool {} resized to maximumPoolSize={} minimumIdle={} (mean wait {}ms, utilization {})",
+                dataSource.getPoolName(), maximumPoolSize, minimumIdle,
+                String.format("%.2f", meanWaitMillis), String.format("%.2f", utilization));
+    }
+}
@@ -1,18 +1,122 @@
 package com.liaverg.config;
 
+import com.liaverg.config.PoolWarmer.WarmupReport;
+import com.liaverg.metrics.ConnectionHoldProfiler;
+import com.liaverg.metrics.DbMetrics;
 import com.liaverg.utilities.DbUtils;
+import com.liaverg.utilities.GroupCommitExecutor;
+import com.liaverg.utilities.QueryResultCache;
+import com.liaverg.utilities.ReplicaBalancer;
+import com.liaverg.utilities.ReplicaRouter;
+import com.liaverg.utilities.ShardRouter;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 public class AppConfig {
     private DataSourceProvider dataSourceProvider;
+    private List<DataSourceProvider> replicaDataSourceProviders;
+    private List<DataSourceProvider> shardDataSourceProviders;
+    private ShardRouter shardRouter;
+    private AdaptivePoolSizer adaptivePoolSizer;
     private PropertiesReader propertiesReader;
+    private CompletableFuture<WarmupReport> readiness;
 
     public AppConfig() {
+        long startNanos = System.nanoTime();
         this.propertiesReader = new PropertiesReader();
-        this.dataSourceProvider = new DataSourceProvider(
-                propertiesReader.getJdbcUrl(),
+        this.dataSourceProvider = createDataSourceProvider(propertiesReader.getJdbcUrl());
+        this.replicaDataSourceProviders = new ArrayList<>();
+        for (String replicaJdbcUrl : propertiesReader.getReplicaJdbcUrls()) {
+            replicaDataSourceProviders.add(createDataSourceProvider(replicaJdbcUrl));
+        }
+        this.shardDataSourceProviders = new ArrayList<>();
+        for (String shardJdbcUrl : propertiesReader.getShardJdbcUrls()) {
+            shardDataSourceProviders.add(createDataSourceProvider(shardJdbcUrl));
+        }
+        new DbUtils(dataSourceProvider.getHikariProxyDataSource());
+        if (!shardDataSourceProviders.isEmpty()) {
+            List<DbUtils> shards = new ArrayList<>();
+            for (int i = 0; i < shardDataSourceProviders.size(); i++) {
+                shards.add(DbUtils.register("shard-" + i, shardDataSourceProviders.get(i).getHikariProxyDataSource()));
+            }
+            shardRouter = new ShardRouter(shards);
+        }
+        DbMetrics.registerMBean();
+        ConnectionHoldProfiler.registerMBean();
+        ConnectionHoldProfiler.getInstance().setSampleRate(propertiesReader.getHoldProfilerSampleRate());
+        ConnectionHoldProfiler.getInstance().setEnabled(propertiesReader.isHoldProfilerEnabled());
+        DbUtils.setStatementCacheSize(propertiesReader.getStatementCacheSize());
+        DbUtils.setRetryPolicy(propertiesReader.getRetryPolicy());
+        DbUtils.setMaxConcurrency(dataSourceProvider.getHikariDataSource().getMaximumPoolSize());
+        AdaptivePoolSettings adaptivePoolSettings = propertiesReader.getAdaptivePoolSettings();
+        if (adaptivePoolSettings.enabled()) {
+            adaptivePoolSizer = new AdaptivePoolSizer(dataSourceProvider.getHikariDataSource(),
+                    dataSourceProvider.getPoolMetricsTracker(), adaptivePoolSettings);
+            adaptivePoolSizer.start();
+        }
+        if (propertiesReader.getQueryCacheMaxEntries() > 0) {
+            DbUtils.setQueryResultCache(new QueryResultCache(propertiesReader.getQueryCacheMaxEntries(),
+                    Duration.ofMillis(propertiesReader.getQueryCacheTtlMillis())));
+        }
+        if (propertiesReader.isGroupCommitEnabled()) {
+            DbUtils.setGroupCommitExecutor(new GroupCommitExecutor(propertiesReader.getGroupCommitMaxBatchSize(),
+                    Duration.ofMillis(propertiesReader.getGroupCommitMaxDelayMillis())));
+        }
+        if (!replicaDataSourceProviders.isEmpty()) {
+            List<DataSource> replicas = replicaDataSourceProviders.stream()
+                    .map(DataSourceProvider::getHikariProxyDataSource)
+                    .toList();
+            DbUtils.setReplicaRouter(new ReplicaRouter(replicas,
+                    ReplicaBalancer.fromName(propertiesReader.getReplicaBalancer())));
+        }
+        readiness = warmUp(startNanos);
+    }
+
+    public ShardRouter getShardRouter() {
+        return shardRouter;
+    }
+
+    public CompletableFuture<WarmupReport> getReadiness() {
+        return readiness;
+    }
+
+    private CompletableFuture<WarmupReport> warmUp(long startNanos) {
+        WarmupSettings warmupSettings = propertiesReader.getWarmupSettings();
+        if (!warmupSettings.enabled()) {
+            return CompletableFuture.completedFuture(
+                    new WarmupReport(Duration.ofNanos(System.nanoTime() - startNanos), 0, 0));
+        }
+        PoolSettings poolSettings = propertiesReader.getPoolSettings();
+        List<DataSourceProvider> providers = new ArrayList<>();
+        providers.add(dataSourceProvider);
+        providers.addAll(replicaDataSourceProviders);
+        providers.addAll(shardDataSourceProviders);
+        CompletableFuture<WarmupReport> combined = null;
+        for (DataSourceProvider provider : providers) {
+            CompletableFuture<WarmupReport> warmup = new PoolWarmer(
+                    provider.getHikariDataSource().getPoolName(),
+                    provider.getHikariDataSource(),
+                    poolSettings.minimumIdle(),
+                    poolSettings.connectionTimeoutMillis(),
+                    warmupSettings).start(startNanos);
+            combined = combined == null ? warmup : combined.thenCombine(warmup, WarmupReport::combine);
+        }
+        return combined;
+    }
+
+    private DataSourceProvider createDataSourceProvider(String jdbcUrl) {
+        return new DataSourceProvider(
+                jdbcUrl,
                 propertiesReader.getUser(),
                 propertiesReader.getPassword(),
-                propertiesReader.getLeakDetectionThreshold());
-        new DbUtils(dataSourceProvider.getHikariProxyDataSource());
+                propertiesReader.getLeakDetectionThreshold(),
+                propertiesReader.isReWriteBatchedInserts(),
+                propertiesReader.getStatementCacheSize(),
+                propertiesReader.getQueryLogSettings(),
+                propertiesReader.getPoolSettings());
     }
 }
@@ -1,5 +1,12 @@
 package com.liaverg.config;
 
+import com.liaverg.metrics.HoldProfilerListener;
+import com.liaverg.metrics.PoolMetricsTracker;
+import com.liaverg.metrics.QueryMetricsListener;
+import com.liaverg.utilities.DeadlineListener;
+import com.liaverg.utilities.SampledQueryLogListener;
+import com.liaverg.utilities.StatementCache;
+import com.liaverg.utilities.TableWriteListener;
 import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
 import net.ttddyy.dsproxy.listener.logging.SLF4JLogLevel;
@@ -7,20 +14,38 @@ import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
 
 import javax.sql.DataSource;
 
-public class DataSourceProvider {
+public class DataSourceProvider implements AutoCloseable {
     private final String url;
     private final String username;
     private final String password;
     private final int leakDetectionThreshold;
+    private final boolean reWriteBatchedInserts;
+    private final int statementCacheSize;
+    private final QueryLogSettings queryLogSettings;
+    private final PoolSettings poolSettings;
+    private final PoolMetricsTracker poolMetricsTracker = new PoolMetricsTracker();
     private final HikariDataSource hikariDataSource;
     private  final DataSource hikariProxyDataSource;
+    private SampledQueryLogListener queryLogListener;
 
     public DataSourceProvider(String url, String username, String password,
                               int leakDetectionThreshold) {
+        this(url, username, password, leakDetectionThreshold, false, StatementCache.DEFAULT_SIZE,
+                QueryLogSettings.DEFAULT, PoolSettings.DEFAULT);
+    }
+
+    public DataSourceProvider(String url, String username, String password,
+                              int leakDetectionThreshold, boolean reWriteBatchedInserts,
+                              int statementCacheSize, QueryLogSettings queryLogSettings,
+                              PoolSettings poolSettings) {
         this.url = url;
         this.username = username;
         this.password = password;
         this.leakDetectionThreshold = leakDetectionThreshold;
+        this.reWriteBatchedInserts = reWriteBatchedInserts;
+        this.statementCacheSize = statementCacheSize;
+        this.queryLogSettings = queryLogSettings;
+        this.poolSettings = poolSettings;
         hikariDataSource = createHikariDataSource();
         hikariProxyDataSource = createHikariProxyDataSource();
     }
@@ -31,18 +56,44 @@ public class DataSourceProvider {
         config.setUsername(username);
         config.setPassword(password);
         config.setLeakDetectionThreshold(leakDetectionThreshold);
+        config.setMaximumPoolSize(poolSettings.maximumPoolSize());
+        config.setMinimumIdle(poolSettings.minimumIdle());
+        config.setConnectionTimeout(poolSettings.connectionTimeoutMillis());
+        config.setIdleTimeout(poolSettings.idleTimeoutMillis());
+        config.setMaxLifetime(poolSettings.maxLifetimeMillis());
+        config.setKeepaliveTime(poolSettings.keepaliveTimeMillis());
+        config.setValidationTimeout(poolSettings.validationTimeoutMillis());
+        config.setInitializationFailTimeout(poolSettings.initializationFailTimeoutMillis());
+        config.addDataSourceProperty("reWriteBatchedInserts", reWriteBatchedInserts);
+        config.addDataSourceProperty("preparedStatementCacheQueries", statementCacheSize);
+        poolSettings.driverProperties().forEach((name, value) -> config.addDataSourceProperty((String) name, value));
+        config.setMetricsTrackerFactory((poolName, poolStats) -> poolMetricsTracker);
         return new HikariDataSource(config);
     }
 
     private DataSource createHikariProxyDataSource() {
-        return ProxyDataSourceBuilder
+        ProxyDataSourceBuilder builder = ProxyDataSourceBuilder
                 .create(hikariDataSource)
                 .name(url)
-                .logQueryBySlf4j(SLF4JLogLevel.INFO)
-                .multiline()
                 .countQuery()
-                .traceMethods()
-                .build();
+                .listener(new DeadlineListener())
+                .listener(new TableWriteListener())
+                .listener(new QueryMetricsListener())
+                .listener(new HoldProfilerListener());
+        switch (queryLogSettings.mode()) {
+            case VERBOSE -> builder
+                    .logQueryBySlf4j(SLF4JLogLevel.INFO)
+                    .multiline()
+                    .traceMethods();
+            case SAMPLED -> {
+                queryLogListener = new SampledQueryLogListener(queryLogSettings.slowQueryThresholdMillis(),
+                        queryLogSettings.sampleRate());
+                builder.listener(queryLogListener);
+            }
+            case OFF -> {
+            }
+        }
+        return builder.build();
     }
 
     public HikariDataSource getHikariDataSource() {
@@ -52,4 +103,16 @@ public class DataSourceProvider {
     public DataSource getHikariProxyDataSource() {
         return hikariProxyDataSource;
     }
+
+    public PoolMetricsTracker getPoolMetricsTracker() {
+        return poolMetricsTracker;
+    }
+
+    @Override
+    public void close() {
+        hikariDataSource.close();
+        if (queryLogListener != null) {
+            queryLogListener.close();
+        }
+    }
 }
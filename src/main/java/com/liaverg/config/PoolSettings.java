@@ -0,0 +1,31 @@
+package com.liaverg.config;
+
+import java.util.Properties;
+
+public record PoolSettings(int maximumPoolSize, int minimumIdle, long connectionTimeoutMillis,
+                           long idleTimeoutMillis, long maxLifetimeMillis, long keepaliveTimeMillis,
+                           long validationTimeoutMillis, long initializationFailTimeoutMillis,
+                           Properties driverProperties) {
+    public static final PoolSettings DEFAULT = new PoolSettings(10, 10, 30_000, 600_000, 1_800_000, 0, 5_000, 1,
+            new Properties());
+
+    public PoolSettings {
+        if (maximumPoolSize <= 0) {
+            throw new IllegalArgumentException("Maximum pool size must be positive: " + maximumPoolSize);
+        }
+        if (minimumIdle < 0 || minimumIdle > maximumPoolSize) {
+            throw new IllegalArgumentException("Minimum idle must be between 0 and " + maximumPoolSize
+                    + ": " + minimumIdle);
+        }
+        Properties copy = new Properties();
+        copy.putAll(driverProperties);
+        driverProperties = copy;
+    }
+
+    @Override
+    public Properties driverProperties() {
+        Properties copy = new Properties();
+        copy.putAll(driverProperties);
+        return copy;
+    }
+}
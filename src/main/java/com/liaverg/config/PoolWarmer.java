@@ -0,0 +1,99 @@
+package com.liaverg.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class PoolWarmer {
+    private static final Logger logger = LoggerFactory.getLogger(PoolWarmer.class);
+
+    public record WarmupReport(Duration timeToReady, int connections, int statementExecutions) {
+        public WarmupReport combine(WarmupReport other) {
+            return new WarmupReport(timeToReady.compareTo(other.timeToReady) >= 0 ? timeToReady : other.timeToReady,
+                    connections + other.connections, statementExecutions + other.statementExecutions);
+        }
+    }
+
+    private final String name;
+    private final DataSource dataSource;
+    private final int connections;
+    private final long connectionTimeoutMillis;
+    private final WarmupSettings settings;
+
+    public PoolWarmer(String name, DataSource dataSource, int connections, long connectionTimeoutMillis,
+                      WarmupSettings settings) {
+        this.name = name;
+        this.dataSource = dataSource;
+        this.connections = Math.max(1, connections);
+        this.connectionTimeoutMillis = connectionTimeoutMillis;
+        this.settings = settings;
+    }
+
+    public CompletableFuture<WarmupReport> start(long startNanos) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(connections, runnable -> {
+            Thread thread = new Thread(runnable, "pool-warmer-" + name + "-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        CountDownLatch allBorrowed = new CountDownLatch(connections);
+        List<CompletableFuture<Integer>> warmups = new ArrayList<>(connections);
+        for (int i = 0; i < connections; i++) {
+            warmups.add(CompletableFuture.supplyAsync(() -> warmConnection(allBorrowed), executor));
+        }
+        CompletableFuture<WarmupReport> readiness = CompletableFuture
+                .allOf(warmups.toArray(CompletableFuture[]::new))
+                .thenApply(ignored -> new WarmupReport(Duration.ofNanos(System.nanoTime() - startNanos), connections,
+                        warmups.stream().mapToInt(CompletableFuture::join).sum()));
+        readiness.whenComplete((report, failure) -> {
+            executor.shutdown();
+            if (failure != null) {
+                logger.warn("Warm-up of pool {} failed", name, failure);
+            } else {
+                logger.info("Pool {} ready in {} ms: {} connections, {} warm-up statement executions", name,
+                        report.timeToReady().toMillis(), report.connections(), report.statementExecutions());
+            }
+        });
+        return readiness;
+    }
+
+    private int warmConnection(CountDownLatch allBorrowed) {
+        boolean countedDown = false;
+        try (Connection conn = dataSource.getConnection()) {
+            allBorrowed.countDown();
+            countedDown = true;
+            int executions = 0;
+            for (String sql : settings.statements()) {
+                try (PreparedStatement statement = conn.prepareStatement(sql)) {
+                    for (int i = 0; i < settings.executionsPerStatement(); i++) {
+                        statement.execute();
+                        executions++;
+                    }
+                }
+            }
+            allBorrowed.await(connectionTimeoutMillis, TimeUnit.MILLISECONDS);
+            return executions;
+        } catch (SQLException e) {
+            if (!countedDown) {
+                allBorrowed.countDown();
+            }
+            throw new RuntimeException("Error during database connection", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while warming up the pool", e);
+        }
+    }
+}
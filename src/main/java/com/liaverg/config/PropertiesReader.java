@@ -1,11 +1,20 @@
 package com.liaverg.config;
+import com.liaverg.utilities.GroupCommitExecutor;
+import com.liaverg.utilities.RetryPolicy;
+import com.liaverg.utilities.StatementCache;
+
 import java.io.IOException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Properties;
 import java.net.URL;
 
 public class PropertiesReader {
     private final Properties properties;
     private static final String DATASOURCE_PROPERTIES_FILE = "datasource.properties";
+    private static final String DRIVER_PROPERTY_PREFIX = "driver.";
+    private static final long LAZY_INITIALIZATION_FAIL_TIMEOUT = -1;
 
     public PropertiesReader() {
         this.properties = new Properties();
@@ -13,7 +22,7 @@ public class PropertiesReader {
     }
 
     private void readProperties(){
-        URL url = ClassLoader.getSystemResource(DATASOURCE_PROPERTIES_FILE);
+        URL url = PropertiesReader.class.getClassLoader().getResource(DATASOURCE_PROPERTIES_FILE);
         try {
             properties.load(url.openStream());
         } catch (IOException e) {
@@ -36,4 +45,134 @@ public class PropertiesReader {
     public int getLeakDetectionThreshold() {
         return Integer.parseInt(properties.getProperty("leakDetectionThreshold"));
     }
+
+    public boolean isReWriteBatchedInserts() {
+        return Boolean.parseBoolean(properties.getProperty("reWriteBatchedInserts", "false"));
+    }
+
+    public int getStatementCacheSize() {
+        return Integer.parseInt(properties.getProperty("statementCacheSize",
+                String.valueOf(StatementCache.DEFAULT_SIZE)));
+    }
+
+    public List<String> getReplicaJdbcUrls() {
+        return Arrays.stream(properties.getProperty("replicaJdbcUrls", "").split(","))
+                .map(String::trim)
+                .filter(url -> !url.isEmpty())
+                .toList();
+    }
+
+    public List<String> getShardJdbcUrls() {
+        return Arrays.stream(properties.getProperty("shardJdbcUrls", "").split(","))
+                .map(String::trim)
+                .filter(url -> !url.isEmpty())
+                .toList();
+    }
+
+    public String getReplicaBalancer() {
+        return properties.getProperty("replicaBalancer", "round-robin");
+    }
+
+    public int getQueryCacheMaxEntries() {
+        return Integer.parseInt(properties.getProperty("queryCacheMaxEntries", "0"));
+    }
+
+    public long getQueryCacheTtlMillis() {
+        return Long.parseLong(properties.getProperty("queryCacheTtlMillis", "5000"));
+    }
+
+    public QueryLogSettings getQueryLogSettings() {
+        QueryLogSettings defaults = QueryLogSettings.DEFAULT;
+        return new QueryLogSettings(
+                QueryLogSettings.Mode.valueOf(properties.getProperty("queryLogMode", defaults.mode().name())
+                        .trim().toUpperCase()),
+                Long.parseLong(properties.getProperty("slowQueryThresholdMillis",
+                        String.valueOf(defaults.slowQueryThresholdMillis()))),
+                Double.parseDouble(properties.getProperty("queryLogSampleRate",
+                        String.valueOf(defaults.sampleRate()))));
+    }
+
+    public PoolSettings getPoolSettings() {
+        PoolSettings defaults = PoolSettings.DEFAULT;
+        int maximumPoolSize = getInt("maximumPoolSize", defaults.maximumPoolSize());
+        Properties driverProperties = new Properties();
+        for (String name : properties.stringPropertyNames()) {
+            if (name.startsWith(DRIVER_PROPERTY_PREFIX)) {
+                driverProperties.setProperty(name.substring(DRIVER_PROPERTY_PREFIX.length()),
+                        properties.getProperty(name).trim());
+            }
+        }
+        return new PoolSettings(
+                maximumPoolSize,
+                getInt("minimumIdle", maximumPoolSize),
+                getLong("connectionTimeout", defaults.connectionTimeoutMillis()),
+                getLong("idleTimeout", defaults.idleTimeoutMillis()),
+                getLong("maxLifetime", defaults.maxLifetimeMillis()),
+                getLong("keepaliveTime", defaults.keepaliveTimeMillis()),
+                getLong("validationTimeout", defaults.validationTimeoutMillis()),
+                getLong("initializationFailTimeout", getWarmupSettings().enabled()
+                        ? LAZY_INITIALIZATION_FAIL_TIMEOUT : defaults.initializationFailTimeoutMillis()),
+                driverProperties);
+    }
+
+    public AdaptivePoolSettings getAdaptivePoolSettings() {
+        AdaptivePoolSettings defaults = AdaptivePoolSettings.DISABLED;
+        return new AdaptivePoolSettings(
+                Boolean.parseBoolean(properties.getProperty("adaptivePoolEnabled", "false")),
+                getInt("adaptivePoolMinSize", defaults.minPoolSize()),
+                getInt("adaptivePoolMaxSize", defaults.maxPoolSize()),
+                getLong("adaptivePoolTargetWaitMillis", defaults.targetWaitMillis()),
+                getLong("adaptivePoolIntervalMillis", defaults.intervalMillis()));
+    }
+
+    public RetryPolicy getRetryPolicy() {
+        return new RetryPolicy(
+                getInt("retryMaxAttempts", 5),
+                Duration.ofMillis(getLong("retryInitialBackoffMillis", 10)),
+                Duration.ofMillis(getLong("retryMaxBackoffMillis", 1000)),
+                Double.parseDouble(properties.getProperty("retryBudgetRatio", "0.1")),
+                getInt("retryBudgetCapacity", 100));
+    }
+
+    public WarmupSettings getWarmupSettings() {
+        WarmupSettings defaults = WarmupSettings.DISABLED;
+        List<String> statements = Arrays.stream(properties.getProperty("warmupStatements", "").split(";"))
+                .map(String::trim)
+                .filter(statement -> !statement.isEmpty())
+                .toList();
+        return new WarmupSettings(
+                Boolean.parseBoolean(properties.getProperty("warmupEnabled", "false")),
+                statements.isEmpty() ? defaults.statements() : statements,
+                getInt("warmupExecutionsPerStatement", defaults.executionsPerStatement()));
+    }
+
+    public boolean isHoldProfilerEnabled() {
+        return Boolean.parseBoolean(properties.getProperty("holdProfilerEnabled", "false"));
+    }
+
+    public double getHoldProfilerSampleRate() {
+        return Double.parseDouble(properties.getProperty("holdProfilerSampleRate", "0.01"));
+    }
+
+    public boolean isGroupCommitEnabled() {
+        return Boolean.parseBoolean(properties.getProperty("groupCommitEnabled", "false"));
+    }
+
+    public int getGroupCommitMaxBatchSize() {
+        return getInt("groupCommitMaxBatchSize", GroupCommitExecutor.DEFAULT_MAX_BATCH_SIZE);
+    }
+
+    public long getGroupCommitMaxDelayMillis() {
+        return getLong("groupCommitMaxDelayMillis", GroupCommitExecutor.DEFAULT_MAX_DELAY.toMillis());
+    }
+
+    private int getInt(String name, int defaultValue) {
+        String value = properties.getProperty(name);
+        return value == null ? defaultValue : Integer.parseInt(value.trim());
+    }
+
+    private long getLong(String name, long defaultValue) {
+        String value = properties.getProperty(name);
+        return value == null ? defaultValue : Long.parseLong(value.trim());
+    }
 }
\ No newline at end of file
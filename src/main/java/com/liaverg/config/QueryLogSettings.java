@@ -0,0 +1,18 @@
+package com.liaverg.config;
+
+public record QueryLogSettings(Mode mode, long slowQueryThresholdMillis, double sampleRate) {
+    public static final QueryLogSettings DEFAULT = new QueryLogSettings(Mode.SAMPLED, 500, 0.01);
+
+    public enum Mode {
+        VERBOSE, SAMPLED, OFF
+    }
+
+    public QueryLogSettings {
+        if (slowQueryThresholdMillis < 0) {
+            throw new IllegalArgumentException("Slow query threshold must not be negative: " + slowQueryThresholdMillis);
+        }
+        if (sampleRate < 0.0 || sampleRate > 1.0) {
+            throw new IllegalArgumentException("Sample rate must be between 0 and 1: " + sampleRate);
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.liaverg.config;
+
+import java.util.List;
+
+public record WarmupSettings(boolean enabled, List<String> statements, int executionsPerStatement) {
+    public static final WarmupSettings DISABLED = new WarmupSettings(false, List.of("SELECT 1"), 5);
+
+    public WarmupSettings {
+        if (executionsPerStatement <= 0) {
+            throw new IllegalArgumentException("Warm-up executions must be positive: " + executionsPerStatement);
+        }
+        statements = List.copyOf(statements);
+    }
+}
@@ -0,0 +1,54 @@
+package com.liaverg.metrics;
+
+import java.beans.ConstructorProperties;
+
+public class CallSiteHoldStats {
+    private final String callSite;
+    private final long sampleCount;
+    private final long totalHoldMicros;
+    private final LatencySnapshot holdTime;
+    private final double meanIdleMicros;
+    private final double idleRatio;
+    private final double meanStatementCount;
+
+    @ConstructorProperties({"callSite", "sampleCount", "totalHoldMicros", "holdTime", "meanIdleMicros",
+            "idleRatio", "meanStatementCount"})
+    public CallSiteHoldStats(String callSite, long sampleCount, long totalHoldMicros, LatencySnapshot holdTime,
+                             double meanIdleMicros, double idleRatio, double meanStatementCount) {
+        this.callSite = callSite;
+        this.sampleCount = sampleCount;
+        this.totalHoldMicros = totalHoldMicros;
+        this.holdTime = holdTime;
+        this.meanIdleMicros = meanIdleMicros;
+        this.idleRatio = idleRatio;
+        this.meanStatementCount = meanStatementCount;
+    }
+
+    public String getCallSite() {
+        return callSite;
+    }
+
+    public long getSampleCount() {
+        return sampleCount;
+    }
+
+    public long getTotalHoldMicros() {
+        return totalHoldMicros;
+    }
+
+    public LatencySnapshot getHoldTime() {
+        return holdTime;
+    }
+
+    public double getMeanIdleMicros() {
+        return meanIdleMicros;
+    }
+
+    public double getIdleRatio() {
+        return idleRatio;
+    }
+
+    public double getMeanStatementCount() {
+        return meanStatementCount;
+    }
+}
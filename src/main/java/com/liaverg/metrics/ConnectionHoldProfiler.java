@@ -0,0 +1,198 @@
+package com.liaverg.metrics;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+public class ConnectionHoldProfiler implements ConnectionHoldProfilerMXBean {
+    public static final String OBJECT_NAME = "com.liaverg:type=ConnectionHoldProfiler";
+    public static final int MAX_CALL_SITES = 512;
+    public static final int DEFAULT_TOP_N = 20;
+    public static final String OTHER_CALL_SITE = "<other>";
+    public static final String UNKNOWN_CALL_SITE = "<unknown>";
+
+    private static final ConnectionHoldProfiler INSTANCE = new ConnectionHoldProfiler();
+    private static final StackWalker stackWalker = StackWalker.getInstance();
+
+    public static final class Hold {
+        private final long startNanos = System.nanoTime();
+        private final String callSite;
+        private final Hold previous;
+        private long statementStartNanos;
+        private long busyNanos;
+        private int statementCount;
+
+        private Hold(String callSite, Hold previous) {
+            this.callSite = callSite;
+            this.previous = previous;
+        }
+    }
+
+    private static final class CallSiteStats {
+        private final LatencyRecorder holdTime = new LatencyRecorder(1);
+        private final LongAdder samples = new LongAdder();
+        private final LongAdder holdNanos = new LongAdder();
+        private final LongAdder idleNanos = new LongAdder();
+        private final LongAdder statements = new LongAdder();
+
+        private CallSiteHoldStats snapshot(String callSite) {
+            long sampleCount = samples.sum();
+            long totalHoldNanos = holdNanos.sum();
+            long totalIdleNanos = idleNanos.sum();
+            return new CallSiteHoldStats(callSite, sampleCount, TimeUnit.NANOSECONDS.toMicros(totalHoldNanos),
+                    holdTime.snapshot(),
+                    sampleCount == 0 ? 0 : totalIdleNanos / 1_000.0 / sampleCount,
+                    totalHoldNanos == 0 ? 0 : (double) totalIdleNanos / totalHoldNanos,
+                    sampleCount == 0 ? 0 : (double) statements.sum() / sampleCount);
+        }
+    }
+
+    private final ThreadLocal<Hold> activeHold = new ThreadLocal<>();
+    private final ConcurrentHashMap<String, CallSiteStats> callSites = new ConcurrentHashMap<>();
+    private final CallSiteStats otherCallSites = new CallSiteStats();
+    private volatile boolean enabled;
+    private volatile double sampleRate = 0.01;
+
+    private ConnectionHoldProfiler() {
+    }
+
+    public static ConnectionHoldProfiler getInstance() {
+        return INSTANCE;
+    }
+
+    public static void registerMBean() {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(INSTANCE, new ObjectName(OBJECT_NAME));
+        } catch (InstanceAlreadyExistsException ignored) {
+            // already registered by another AppConfig in this JVM
+        } catch (JMException e) {
+            throw new RuntimeException("Error during profiler registration", e);
+        }
+    }
+
+    public Hold startHold() {
+        if (!enabled || ThreadLocalRandom.current().nextDouble() >= sampleRate) {
+            return null;
+        }
+        Hold hold = new Hold(findCallSite(), activeHold.get());
+        activeHold.set(hold);
+        return hold;
+    }
+
+    public void endHold(Hold hold) {
+        if (hold == null) {
+            return;
+        }
+        if (hold.previous == null) {
+            activeHold.remove();
+        } else {
+            activeHold.set(hold.previous);
+        }
+        long holdNanos = System.nanoTime() - hold.startNanos;
+        CallSiteStats stats = callSites.get(hold.callSite);
+        if (stats == null) {
+            stats = callSites.size() < MAX_CALL_SITES
+                    ? callSites.computeIfAbsent(hold.callSite, ignored -> new CallSiteStats())
+                    : otherCallSites;
+        }
+        stats.holdTime.recordNanos(holdNanos);
+        stats.samples.increment();
+        stats.holdNanos.add(holdNanos);
+        stats.idleNanos.add(Math.max(0, holdNanos - hold.busyNanos));
+        stats.statements.add(hold.statementCount);
+    }
+
+    void beforeStatement() {
+        Hold hold = activeHold.get();
+        if (hold != null) {
+            hold.statementStartNanos = System.nanoTime();
+        }
+    }
+
+    void afterStatement() {
+        Hold hold = activeHold.get();
+        if (hold != null && hold.statementStartNanos != 0) {
+            hold.busyNanos += System.nanoTime() - hold.statementStartNanos;
+            hold.statementStartNanos = 0;
+            hold.statementCount++;
+        }
+    }
+
+    private static String findCallSite() {
+        return stackWalker.walk(frames -> frames
+                .filter(frame -> !frame.getClassName().startsWith("com.liaverg.utilities.")
+                        && !frame.getClassName().startsWith("com.liaverg.metrics."))
+                .findFirst()
+                .map(frame -> frame.getClassName() + "." + frame.getMethodName() + ":" + frame.getLineNumber())
+                .orElse(UNKNOWN_CALL_SITE));
+    }
+
+    public List<CallSiteHoldStats> getTopCallSites(int limit) {
+        List<CallSiteHoldStats> stats = new ArrayList<>();
+        callSites.forEach((callSite, siteStats) -> stats.add(siteStats.snapshot(callSite)));
+        CallSiteHoldStats other = otherCallSites.snapshot(OTHER_CALL_SITE);
+        if (other.getSampleCount() > 0) {
+            stats.add(other);
+        }
+        stats.sort(Comparator.comparingLong(CallSiteHoldStats::getTotalHoldMicros).reversed());
+        return stats.size() > limit ? List.copyOf(stats.subList(0, limit)) : List.copyOf(stats);
+    }
+
+    @Override
+    public List<CallSiteHoldStats> getTopCallSites() {
+        return getTopCallSites(DEFAULT_TOP_N);
+    }
+
+    @Override
+    public String getTopReport() {
+        StringBuilder report = new StringBuilder(String.format("%-60s %8s %12s %10s %10s %8s %8s%n",
+                "call site", "samples", "total ms", "p50 us", "p99 us", "idle %", "stmts"));
+        for (CallSiteHoldStats stats : getTopCallSites()) {
+            report.append(String.format("%-60s %8d %12.1f %10d %10d %8.1f %8.1f%n", stats.getCallSite(),
+                    stats.getSampleCount(), stats.getTotalHoldMicros() / 1_000.0, stats.getHoldTime().getP50Micros(),
+                    stats.getHoldTime().getP99Micros(), stats.getIdleRatio() * 100, stats.getMeanStatementCount()));
+        }
+        return report.toString();
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    @Override
+    public double getSampleRate() {
+        return sampleRate;
+    }
+
+    @Override
+    public void setSampleRate(double sampleRate) {
+        if (sampleRate < 0 || sampleRate > 1) {
+            throw new IllegalArgumentException("Sample rate must be between 0 and 1: " + sampleRate);
+        }
+        this.sampleRate = sampleRate;
+    }
+
+    @Override
+    public void reset() {
+        callSites.clear();
+        otherCallSites.holdTime.reset();
+        otherCallSites.samples.reset();
+        otherCallSites.holdNanos.reset();
+        otherCallSites.idleNanos.reset();
+        otherCallSites.statements.reset();
+    }
+}
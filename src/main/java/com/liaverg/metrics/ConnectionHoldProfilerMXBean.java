@@ -0,0 +1,19 @@
+package com.liaverg.metrics;
+
+import java.util.List;
+
+public interface ConnectionHoldProfilerMXBean {
+    boolean isEnabled();
+
+    void setEnabled(boolean enabled);
+
+    double getSampleRate();
+
+    void setSampleRate(double sampleRate);
+
+    List<CallSiteHoldStats> getTopCallSites();
+
+    String getTopReport();
+
+    void reset();
+}
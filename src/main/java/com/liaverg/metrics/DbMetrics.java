@@ -0,0 +1,152 @@
+package com.liaverg.metrics;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+public class DbMetrics implements DbMetricsMXBean {
+    public static final String OBJECT_NAME = "com.liaverg:type=DbMetrics";
+    public static final int MAX_QUERY_SHAPES = 256;
+    public static final String OTHER_QUERY_SHAPE = "<other>";
+
+    private static final int STRIPES = Runtime.getRuntime().availableProcessors();
+    private static final int QUERY_SHAPE_STRIPES = Math.min(4, STRIPES);
+    private static final DbMetrics INSTANCE = new DbMetrics();
+
+    private final ConcurrentHashMap<String, LatencyRecorder> queryLatencies = new ConcurrentHashMap<>();
+    private final LatencyRecorder otherQueryLatency = new LatencyRecorder(QUERY_SHAPE_STRIPES);
+    private final LatencyRecorder transactionLatency = new LatencyRecorder(STRIPES);
+    private final LatencyRecorder connectionAcquisitionLatency = new LatencyRecorder(STRIPES);
+    private final LongAdder commits = new LongAdder();
+    private final LongAdder rollbacks = new LongAdder();
+    private final LongAdder connectionTimeouts = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder retriedSuccesses = new LongAdder();
+    private final LongAdder retriesExhausted = new LongAdder();
+
+    private DbMetrics() {
+    }
+
+    public static DbMetrics getInstance() {
+        return INSTANCE;
+    }
+
+    public static void registerMBean() {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(INSTANCE, new ObjectName(OBJECT_NAME));
+        } catch (InstanceAlreadyExistsException ignored) {
+            // already registered by another AppConfig in this JVM
+        } catch (JMException e) {
+            throw new RuntimeException("Error during metrics registration", e);
+        }
+    }
+
+    public void recordQuery(String sql, long nanos) {
+        LatencyRecorder recorder = queryLatencies.get(sql);
+        if (recorder == null) {
+            recorder = queryLatencies.size() < MAX_QUERY_SHAPES
+                    ? queryLatencies.computeIfAbsent(sql, ignored -> new LatencyRecorder(QUERY_SHAPE_STRIPES))
+                    : otherQueryLatency;
+        }
+        recorder.recordNanos(nanos);
+    }
+
+    public void recordTransaction(long nanos, boolean committed) {
+        transactionLatency.recordNanos(nanos);
+        if (committed) {
+            commits.increment();
+        } else {
+            rollbacks.increment();
+        }
+    }
+
+    public void recordConnectionAcquisition(long nanos) {
+        connectionAcquisitionLatency.recordNanos(nanos);
+    }
+
+    public void recordConnectionTimeout() {
+        connectionTimeouts.increment();
+    }
+
+    public void recordRetry() {
+        retries.increment();
+    }
+
+    public void recordRetriedSuccess() {
+        retriedSuccesses.increment();
+    }
+
+    public void recordRetryExhausted() {
+        retriesExhausted.increment();
+    }
+
+    @Override
+    public Map<String, LatencySnapshot> getQueryLatencies() {
+        Map<String, LatencySnapshot> snapshots = new TreeMap<>();
+        queryLatencies.forEach((sql, recorder) -> snapshots.put(sql, recorder.snapshot()));
+        LatencySnapshot other = otherQueryLatency.snapshot();
+        if (other.getCount() > 0) {
+            snapshots.put(OTHER_QUERY_SHAPE, other);
+        }
+        return snapshots;
+    }
+
+    @Override
+    public LatencySnapshot getTransactionLatency() {
+        return transactionLatency.snapshot();
+    }
+
+    @Override
+    public LatencySnapshot getConnectionAcquisitionLatency() {
+        return connectionAcquisitionLatency.snapshot();
+    }
+
+    @Override
+    public long getCommitCount() {
+        return commits.sum();
+    }
+
+    @Override
+    public long getRollbackCount() {
+        return rollbacks.sum();
+    }
+
+    @Override
+    public long getConnectionTimeoutCount() {
+        return connectionTimeouts.sum();
+    }
+
+    @Override
+    public long getRetryCount() {
+        return retries.sum();
+    }
+
+    @Override
+    public long getRetriedSuccessCount() {
+        return retriedSuccesses.sum();
+    }
+
+    @Override
+    public long getRetryExhaustedCount() {
+        return retriesExhausted.sum();
+    }
+
+    @Override
+    public void reset() {
+        queryLatencies.clear();
+        otherQueryLatency.reset();
+        transactionLatency.reset();
+        connectionAcquisitionLatency.reset();
+        commits.reset();
+        rollbacks.reset();
+        connectionTimeouts.reset();
+        retries.reset();
+        retriedSuccesses.reset();
+        retriesExhausted.reset();
+    }
+}
@@ -0,0 +1,25 @@
+package com.liaverg.metrics;
+
+import java.util.Map;
+
+public interface DbMetricsMXBean {
+    Map<String, LatencySnapshot> getQueryLatencies();
+
+    LatencySnapshot getTransactionLatency();
+
+    LatencySnapshot getConnectionAcquisitionLatency();
+
+    long getCommitCount();
+
+    long getRollbackCount();
+
+    long getConnectionTimeoutCount();
+
+    long getRetryCount();
+
+    long getRetriedSuccessCount();
+
+    long getRetryExhaustedCount();
+
+    void reset();
+}
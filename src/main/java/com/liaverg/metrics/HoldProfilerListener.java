@@ -0,0 +1,25 @@
+package com.liaverg.metrics;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+
+import java.util.List;
+
+public class HoldProfilerListener implements QueryExecutionListener {
+    private final ConnectionHoldProfiler profiler = ConnectionHoldProfiler.getInstance();
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        if (profiler.isEnabled()) {
+            profiler.beforeStatement();
+        }
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        if (profiler.isEnabled()) {
+            profiler.afterStatement();
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.liaverg.metrics;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.concurrent.TimeUnit;
+
+public class LatencyRecorder {
+    private static final int SIGNIFICANT_DIGITS = 2;
+
+    private final Recorder[] stripes;
+    private final int stripeMask;
+    private final Histogram cumulative = new Histogram(SIGNIFICANT_DIGITS);
+    private final Histogram[] intervals;
+
+    public LatencyRecorder(int stripeCount) {
+        int size = stripeCount <= 1 ? 1 : Integer.highestOneBit(stripeCount - 1) << 1;
+        this.stripes = new Recorder[size];
+        this.intervals = new Histogram[size];
+        this.stripeMask = stripes.length - 1;
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new Recorder(SIGNIFICANT_DIGITS);
+        }
+    }
+
+    public void recordNanos(long nanos) {
+        long micros = TimeUnit.NANOSECONDS.toMicros(Math.max(0, nanos));
+        stripes[(int) Thread.currentThread().getId() & stripeMask].recordValue(micros);
+    }
+
+    public synchronized LatencySnapshot snapshot() {
+        for (int i = 0; i < stripes.length; i++) {
+            intervals[i] = stripes[i].getIntervalHistogram(intervals[i]);
+            cumulative.add(intervals[i]);
+        }
+        return new LatencySnapshot(
+                cumulative.getTotalCount(),
+                cumulative.getTotalCount() == 0 ? 0 : cumulative.getMinValue(),
+                cumulative.getMean(),
+                cumulative.getValueAtPercentile(50),
+                cumulative.getValueAtPercentile(90),
+                cumulative.getValueAtPercentile(99),
+                cumulative.getValueAtPercentile(99.9),
+                cumulative.getMaxValue());
+    }
+
+    public synchronized void reset() {
+        for (Recorder stripe : stripes) {
+            stripe.reset();
+        }
+        cumulative.reset();
+    }
+}
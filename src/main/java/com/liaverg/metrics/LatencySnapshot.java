@@ -0,0 +1,66 @@
+package com.liaverg.metrics;
+
+import java.beans.ConstructorProperties;
+
+public class LatencySnapshot {
+    private final long count;
+    private final long minMicros;
+    private final double meanMicros;
+    private final long p50Micros;
+    private final long p90Micros;
+    private final long p99Micros;
+    private final long p999Micros;
+    private final long maxMicros;
+
+    @ConstructorProperties({"count", "minMicros", "meanMicros", "p50Micros", "p90Micros", "p99Micros",
+            "p999Micros", "maxMicros"})
+    public LatencySnapshot(long count, long minMicros, double meanMicros, long p50Micros, long p90Micros,
+                           long p99Micros, long p999Micros, long maxMicros) {
+        this.count = count;
+        this.minMicros = minMicros;
+        this.meanMicros = meanMicros;
+        this.p50Micros = p50Micros;
+        this.p90Micros = p90Micros;
+        this.p99Micros = p99Micros;
+        this.p999Micros = p999Micros;
+        this.maxMicros = maxMicros;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getMinMicros() {
+        return minMicros;
+    }
+
+    public double getMeanMicros() {
+        return meanMicros;
+    }
+
+    public long getP50Micros() {
+        return p50Micros;
+    }
+
+    public long getP90Micros() {
+        return p90Micros;
+    }
+
+    public long getP99Micros() {
+        return p99Micros;
+    }
+
+    public long getP999Micros() {
+        return p999Micros;
+    }
+
+    public long getMaxMicros() {
+        return maxMicros;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("count=%d min=%dus mean=%.1fus p50=%dus p90=%dus p99=%dus p999=%dus max=%dus",
+                count, minMicros, meanMicros, p50Micros, p90Micros, p99Micros, p999Micros, maxMicros);
+    }
+}
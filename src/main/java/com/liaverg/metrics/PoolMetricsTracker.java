@@ -0,0 +1,52 @@
+package com.liaverg.metrics;
+
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+
+import java.util.concurrent.atomic.LongAdder;
+
+public class PoolMetricsTracker implements IMetricsTracker {
+    private final LongAdder acquisitions = new LongAdder();
+    private final LongAdder acquisitionNanos = new LongAdder();
+    private final LongAdder usages = new LongAdder();
+    private final LongAdder usageMillis = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+
+    @Override
+    public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+        acquisitions.increment();
+        acquisitionNanos.add(elapsedAcquiredNanos);
+        DbMetrics.getInstance().recordConnectionAcquisition(elapsedAcquiredNanos);
+    }
+
+    @Override
+    public void recordConnectionUsageMillis(long elapsedBorrowedMillis) {
+        usages.increment();
+        usageMillis.add(elapsedBorrowedMillis);
+    }
+
+    @Override
+    public void recordConnectionTimeout() {
+        timeouts.increment();
+        DbMetrics.getInstance().recordConnectionTimeout();
+    }
+
+    public long getAcquisitionCount() {
+        return acquisitions.sum();
+    }
+
+    public long getAcquisitionNanos() {
+        return acquisitionNanos.sum();
+    }
+
+    public long getUsageCount() {
+        return usages.sum();
+    }
+
+    public long getUsageMillis() {
+        return usageMillis.sum();
+    }
+
+    public long getTimeoutCount() {
+        return timeouts.sum();
+    }
+}
@@ -0,0 +1,24 @@
+package com.liaverg.metrics;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+
+import java.util.List;
+
+public class QueryMetricsListener implements QueryExecutionListener {
+    private static final ThreadLocal<long[]> startNanos = ThreadLocal.withInitial(() -> new long[1]);
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        startNanos.get()[0] = System.nanoTime();
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        long elapsedNanos = System.nanoTime() - startNanos.get()[0];
+        if (!queryInfoList.isEmpty()) {
+            DbMetrics.getInstance().recordQuery(queryInfoList.get(0).getQuery(), elapsedNanos);
+        }
+    }
+}
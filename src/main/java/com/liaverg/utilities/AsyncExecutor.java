@@ -0,0 +1,127 @@
+package com.liaverg.utilities;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+public class AsyncExecutor implements AutoCloseable {
+    private static final class ResizableSemaphore extends Semaphore {
+        private static final long serialVersionUID = 1L;
+
+        private ResizableSemaphore(int permits) {
+            super(permits, true);
+        }
+
+        private void reduce(int reduction) {
+            reducePermits(reduction);
+        }
+    }
+
+    private final ExecutorService executor;
+    private final ResizableSemaphore permits;
+    private volatile int maxConcurrency;
+    private final boolean usesVirtualThreads;
+
+    public AsyncExecutor(int maxConcurrency) {
+        if (maxConcurrency <= 0) {
+            throw new IllegalArgumentException("Max concurrency must be positive: " + maxConcurrency);
+        }
+        this.maxConcurrency = maxConcurrency;
+        this.permits = new ResizableSemaphore(maxConcurrency);
+        ExecutorService virtualExecutor = newVirtualThreadExecutor();
+        this.usesVirtualThreads = virtualExecutor != null;
+        this.executor = usesVirtualThreads ? virtualExecutor : newPlatformThreadExecutor(maxConcurrency);
+    }
+
+    public <T> CompletableFuture<T> submit(Supplier<T> task) {
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return CompletableFuture.failedFuture(e);
+        }
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                try {
+                    return task.get();
+                } finally {
+                    permits.release();
+                }
+            }, executor);
+        } catch (RejectedExecutionException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    public synchronized void setMaxConcurrency(int maxConcurrency) {
+        if (maxConcurrency <= 0) {
+            throw new IllegalArgumentException("Max concurrency must be positive: " + maxConcurrency);
+        }
+        int delta = maxConcurrency - this.maxConcurrency;
+        if (delta > 0) {
+            permits.release(delta);
+        } else if (delta < 0) {
+            permits.reduce(-delta);
+        }
+        if (executor instanceof ThreadPoolExecutor pool) {
+            if (maxConcurrency > pool.getMaximumPoolSize()) {
+                pool.setMaximumPoolSize(maxConcurrency);
+                pool.setCorePoolSize(maxConcurrency);
+            } else {
+                pool.setCorePoolSize(maxConcurrency);
+                pool.setMaximumPoolSize(maxConcurrency);
+            }
+        }
+        this.maxConcurrency = maxConcurrency;
+    }
+
+    public int getInFlightCount() {
+        return maxConcurrency - permits.availablePermits();
+    }
+
+    public int getQueuedCallerCount() {
+        return permits.getQueueLength();
+    }
+
+    public boolean usesVirtualThreads() {
+        return usesVirtualThreads;
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (NoSuchMethodException e) {
+            return null;
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Unable to create virtual thread executor", e);
+        }
+    }
+
+    private static ExecutorService newPlatformThreadExecutor(int threadCount) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "dbutils-async-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        return Executors.newFixedThreadPool(threadCount, threadFactory);
+    }
+}
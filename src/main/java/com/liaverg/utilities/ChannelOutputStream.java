@@ -0,0 +1,76 @@
+package com.liaverg.utilities;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+class ChannelOutputStream extends OutputStream {
+    private static final int MAX_POOLED_BUFFERS = 8;
+    private static final BlockingQueue<ByteBuffer> bufferPool = new ArrayBlockingQueue<>(MAX_POOLED_BUFFERS);
+
+    private final WritableByteChannel channel;
+    private ByteBuffer buffer;
+
+    ChannelOutputStream(WritableByteChannel channel, int bufferSize) {
+        this.channel = channel;
+        this.buffer = acquireBuffer(bufferSize);
+    }
+
+    private static ByteBuffer acquireBuffer(int bufferSize) {
+        ByteBuffer pooled = bufferPool.poll();
+        return pooled != null && pooled.capacity() == bufferSize ? pooled : ByteBuffer.allocateDirect(bufferSize);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        if (!buffer.hasRemaining()) {
+            drain();
+        }
+        buffer.put((byte) b);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        while (len > 0) {
+            if (!buffer.hasRemaining()) {
+                drain();
+            }
+            int chunk = Math.min(len, buffer.remaining());
+            buffer.put(b, off, chunk);
+            off += chunk;
+            len -= chunk;
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (buffer != null) {
+            drain();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (buffer == null) {
+            return;
+        }
+        try {
+            drain();
+        } finally {
+            buffer.clear();
+            bufferPool.offer(buffer);
+            buffer = null;
+        }
+    }
+
+    private void drain() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
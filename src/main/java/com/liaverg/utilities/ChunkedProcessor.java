@@ -0,0 +1,257 @@
+package com.liaverg.utilities;
+
+import com.liaverg.utilities.DbUtils.RowMapper;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class ChunkedProcessor<T> {
+
+    @FunctionalInterface
+    public interface ChunkHandler<T> {
+        void process(Connection conn, List<T> rows) throws SQLException;
+    }
+
+    public interface Checkpoint {
+        long load();
+
+        void save(Connection conn, long lastKey) throws SQLException;
+
+        static Checkpoint inMemory(long startAfterKey) {
+            AtomicLong lastKey = new AtomicLong(startAfterKey);
+            return new Checkpoint() {
+                @Override
+                public long load() {
+                    return lastKey.get();
+                }
+
+                @Override
+                public void save(Connection conn, long key) {
+                    lastKey.set(key);
+                }
+            };
+        }
+
+        static Checkpoint table(String checkpointTable, String jobName, long startAfterKey) {
+            String selectSQL = "SELECT last_key FROM " + checkpointTable + " WHERE job_name = ?";
+            String updateSQL = "UPDATE " + checkpointTable + " SET last_key = ? WHERE job_name = ?";
+            String insertSQL = "INSERT INTO " + checkpointTable + " (job_name, last_key) VALUES (?, ?)";
+            return new Checkpoint() {
+                @Override
+                public long load() {
+                    return DbUtils.executeStatementsWithResult(conn -> {
+                        try (PreparedStatement statement = conn.prepareStatement(selectSQL)) {
+                            statement.setString(1, jobName);
+                            try (ResultSet resultSet = statement.executeQuery()) {
+                                return resultSet.next() ? resultSet.getLong(1) : startAfterKey;
+                            }
+                        }
+                    });
+                }
+
+                @Override
+                public void save(Connection conn, long lastKey) throws SQLException {
+                    try (PreparedStatement update = conn.prepareStatement(updateSQL)) {
+                        update.setLong(1, lastKey);
+                        update.setString(2, jobName);
+                        if (update.executeUpdate() > 0) {
+                            return;
+                        }
+                    }
+                    try (PreparedStatement insert = conn.prepareStatement(insertSQL)) {
+                        insert.setString(1, jobName);
+                        insert.setLong(2, lastKey);
+                        insert.executeUpdate();
+                    }
+                }
+            };
+        }
+    }
+
+    public record Settings(int initialChunkSize, int minChunkSize, int maxChunkSize, Duration targetChunkTime,
+                           int parallelism) {
+        public static final Settings DEFAULT = new Settings(1000, 100, 50_000, Duration.ofMillis(500), 1);
+
+        public Settings {
+            if (minChunkSize <= 0 || minChunkSize > initialChunkSize || initialChunkSize > maxChunkSize) {
+                throw new IllegalArgumentException("Chunk sizes must satisfy 0 < min <= initial <= max: "
+                        + minChunkSize + ", " + initialChunkSize + ", " + maxChunkSize);
+            }
+            if (parallelism <= 0) {
+                throw new IllegalArgumentException("Parallelism must be positive: " + parallelism);
+            }
+        }
+
+        public Settings withParallelism(int parallelism) {
+            return new Settings(initialChunkSize, minChunkSize, maxChunkSize, targetChunkTime, parallelism);
+        }
+    }
+
+    public record Progress(long chunkCount, long rowCount, long lastKey, Duration elapsed) {
+    }
+
+    private record Chunk(long lowerExclusive, Long upperInclusive, int size) {
+    }
+
+    private record ChunkOutcome(int rowCount, long lastKey, boolean hasMore) {
+    }
+
+    private final String table;
+    private final String keyColumn;
+    private final RowMapper<T> rowMapper;
+    private final Checkpoint checkpoint;
+    private final Settings settings;
+    private final AtomicInteger chunkSize;
+
+    public ChunkedProcessor(String table, String keyColumn, RowMapper<T> rowMapper, Checkpoint checkpoint,
+                            Settings settings) {
+        this.table = table;
+        this.keyColumn = keyColumn;
+        this.rowMapper = rowMapper;
+        this.checkpoint = checkpoint;
+        this.settings = settings;
+        this.chunkSize = new AtomicInteger(settings.initialChunkSize());
+    }
+
+    public int getChunkSize() {
+        return chunkSize.get();
+    }
+
+    public Progress process(ChunkHandler<T> handler) {
+        if (DbUtils.getTransactionDepth() > 0) {
+            throw new IllegalStateException("Chunked processing runs its own transactions");
+        }
+        long startNanos = System.nanoTime();
+        long lastKey = checkpoint.load();
+        long chunks = 0;
+        long rows = 0;
+        if (settings.parallelism() == 1) {
+            while (true) {
+                ChunkOutcome outcome = processChunk(new Chunk(lastKey, null, chunkSize.get()), handler, true);
+                if (outcome.rowCount() > 0) {
+                    chunks++;
+                    rows += outcome.rowCount();
+                    lastKey = outcome.lastKey();
+                }
+                if (!outcome.hasMore()) {
+                    break;
+                }
+            }
+            return new Progress(chunks, rows, lastKey, Duration.ofNanos(System.nanoTime() - startNanos));
+        }
+        ForkJoinPool pool = new ForkJoinPool(settings.parallelism());
+        Deque<Future<ChunkOutcome>> inFlight = new ArrayDeque<>();
+        try {
+            long nextLower = lastKey;
+            boolean exhausted = false;
+            while (!exhausted || !inFlight.isEmpty()) {
+                while (!exhausted && inFlight.size() < settings.parallelism()) {
+                    int size = chunkSize.get();
+                    Long upper = findUpperKey(nextLower, size);
+                    Chunk chunk = new Chunk(nextLower, upper, size);
+                    inFlight.add(pool.submit(() -> processChunk(chunk, handler, false)));
+                    if (upper == null) {
+                        exhausted = true;
+                    } else {
+                        nextLower = upper;
+                    }
+                }
+                ChunkOutcome outcome = inFlight.removeFirst().get();
+                if (outcome.rowCount() > 0) {
+                    chunks++;
+                    rows += outcome.rowCount();
+                    lastKey = outcome.lastKey();
+                    long watermark = lastKey;
+                    DbUtils.executeStatementsInTransaction(conn -> checkpoint.save(conn, watermark));
+                }
+                if (outcome.hasMore()) {
+                    exhausted = false;
+                    nextLower = lastKey;
+                }
+            }
+            return new Progress(chunks, rows, lastKey, Duration.ofNanos(System.nanoTime() - startNanos));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for chunks", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new RuntimeException("Error during statement execution", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private Long findUpperKey(long lowerExclusive, int size) {
+        String boundarySQL = "SELECT " + keyColumn + " FROM " + table + " WHERE " + keyColumn + " > ? ORDER BY "
+                + keyColumn + " LIMIT 1 OFFSET ?";
+        return DbUtils.executeStatementsWithResult(conn -> {
+            try (PreparedStatement statement = conn.prepareStatement(boundarySQL)) {
+                statement.setLong(1, lowerExclusive);
+                statement.setInt(2, size - 1);
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    return resultSet.next() ? resultSet.getLong(1) : null;
+                }
+            }
+        });
+    }
+
+    private ChunkOutcome processChunk(Chunk chunk, ChunkHandler<T> handler, boolean saveCheckpoint) {
+        String chunkSQL = chunk.upperInclusive() == null
+                ? "SELECT * FROM " + table + " WHERE " + keyColumn + " > ? ORDER BY " + keyColumn + " LIMIT ?"
+                : "SELECT * FROM " + table + " WHERE " + keyColumn + " > ? AND " + keyColumn + " <= ? ORDER BY "
+                + keyColumn;
+        long startNanos = System.nanoTime();
+        ChunkOutcome outcome = DbUtils.executeStatementsInTransactionWithResult(conn -> {
+            List<T> rows = new ArrayList<>(chunk.size());
+            long lastKey = chunk.lowerExclusive();
+            try (PreparedStatement statement = conn.prepareStatement(chunkSQL)) {
+                statement.setLong(1, chunk.lowerExclusive());
+                if (chunk.upperInclusive() == null) {
+                    statement.setInt(2, chunk.size());
+                } else {
+                    statement.setLong(2, chunk.upperInclusive());
+                }
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    RowMapper<T> boundMapper = DbUtils.bindRowMapper(rowMapper, resultSet);
+                    while (resultSet.next()) {
+                        rows.add(boundMapper.map(resultSet));
+                        lastKey = resultSet.getLong(keyColumn);
+                    }
+                }
+            }
+            if (!rows.isEmpty()) {
+                handler.process(conn, rows);
+                if (saveCheckpoint) {
+                    checkpoint.save(conn, lastKey);
+                }
+            }
+            return new ChunkOutcome(rows.size(), lastKey,
+                    chunk.upperInclusive() == null && rows.size() == chunk.size());
+        });
+        if (outcome.rowCount() >= chunk.size()) {
+            adaptChunkSize(chunk.size(), System.nanoTime() - startNanos);
+        }
+        return outcome;
+    }
+
+    private void adaptChunkSize(int size, long elapsedNanos) {
+        double ratio = (double) settings.targetChunkTime().toNanos() / Math.max(1, elapsedNanos);
+        ratio = Math.max(0.5, Math.min(2.0, ratio));
+        int next = (int) Math.round(size * ratio);
+        chunkSize.set(Math.max(settings.minChunkSize(), Math.min(settings.maxChunkSize(), next)));
+    }
+}
@@ -0,0 +1,487 @@
+package com.liaverg.utilities;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+public class ColumnarResult {
+    private static final int STRING_HEAP_OVERHEAD = 56;
+    private static final int OBJECT_HEADER = 16;
+
+    public enum Storage {
+        HEAP, OFF_HEAP
+    }
+
+    public enum ColumnType {
+        INT, LONG, DOUBLE, STRING
+    }
+
+    public record Settings(Storage storage, int maxDictionarySize, int initialCapacity) {
+        public static final Settings DEFAULT = new Settings(Storage.HEAP, 65_536, 1024);
+
+        public Settings {
+            if (maxDictionarySize < 0) {
+                throw new IllegalArgumentException("Dictionary size must not be negative: " + maxDictionarySize);
+            }
+            if (initialCapacity <= 0) {
+                throw new IllegalArgumentException("Initial capacity must be positive: " + initialCapacity);
+            }
+        }
+
+        public Settings withStorage(Storage storage) {
+            return new Settings(storage, maxDictionarySize, initialCapacity);
+        }
+    }
+
+    public record Footprint(int rowCount, long heapBytes, long offHeapBytes) {
+        public long totalBytes() {
+            return heapBytes + offHeapBytes;
+        }
+
+        public double bytesPerRow() {
+            return rowCount == 0 ? 0 : (double) totalBytes() / rowCount;
+        }
+    }
+
+    private final String[] names;
+    private final Column[] columns;
+    private final Map<String, Integer> columnIndexes = new HashMap<>();
+    private final int rowCount;
+
+    private ColumnarResult(String[] names, Column[] columns, int rowCount) {
+        this.names = names;
+        this.columns = columns;
+        this.rowCount = rowCount;
+        for (int i = 0; i < names.length; i++) {
+            columnIndexes.putIfAbsent(names[i].toLowerCase(Locale.ROOT), i);
+        }
+    }
+
+    public static ColumnarResult from(ResultSet resultSet, Settings settings) throws SQLException {
+        ResultSetMetaData metaData = resultSet.getMetaData();
+        int columnCount = metaData.getColumnCount();
+        String[] names = new String[columnCount];
+        Column[] columns = new Column[columnCount];
+        boolean direct = settings.storage() == Storage.OFF_HEAP;
+        for (int i = 0; i < columnCount; i++) {
+            names[i] = metaData.getColumnLabel(i + 1);
+            columns[i] = switch (metaData.getColumnType(i + 1)) {
+                case Types.TINYINT, Types.SMALLINT, Types.INTEGER ->
+                        new NumericColumn(ColumnType.INT, direct, settings.initialCapacity());
+                case Types.BIGINT -> new NumericColumn(ColumnType.LONG, direct, settings.initialCapacity());
+                case Types.REAL, Types.FLOAT, Types.DOUBLE ->
+                        new NumericColumn(ColumnType.DOUBLE, direct, settings.initialCapacity());
+                default -> new StringColumn(direct, settings.initialCapacity(), settings.maxDictionarySize());
+            };
+        }
+        int rowCount = 0;
+        while (resultSet.next()) {
+            for (int i = 0; i < columnCount; i++) {
+                columns[i].append(resultSet, i + 1, rowCount);
+            }
+            rowCount++;
+        }
+        for (Column column : columns) {
+            column.freeze(rowCount);
+        }
+        return new ColumnarResult(names, columns, rowCount);
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    public int getColumnCount() {
+        return columns.length;
+    }
+
+    public String getColumnName(int column) {
+        return names[column];
+    }
+
+    public ColumnType getColumnType(int column) {
+        return columns[column].type;
+    }
+
+    public int columnIndex(String label) {
+        Integer index = columnIndexes.get(label.toLowerCase(Locale.ROOT));
+        if (index == null) {
+            throw new IllegalArgumentException("No column labelled " + label);
+        }
+        return index;
+    }
+
+    public boolean isDictionaryEncoded(int column) {
+        return columns[column] instanceof StringColumn strings && strings.dictionary != null;
+    }
+
+    public int getDictionarySize(int column) {
+        return dictionaryColumn(column).dictionary.length;
+    }
+
+    public String getDictionaryValue(int column, int code) {
+        return dictionaryColumn(column).dictionary[code];
+    }
+
+    public Cursor cursor() {
+        return new Cursor();
+    }
+
+    public Footprint getFootprint() {
+        long heapBytes = OBJECT_HEADER * 4L + names.length * 8L;
+        long offHeapBytes = 0;
+        for (Column column : columns) {
+            heapBytes += column.heapBytes();
+            offHeapBytes += column.offHeapBytes();
+        }
+        return new Footprint(rowCount, heapBytes, offHeapBytes);
+    }
+
+    private StringColumn dictionaryColumn(int column) {
+        if (!isDictionaryEncoded(column)) {
+            throw new IllegalStateException("Column " + names[column] + " is not dictionary-encoded");
+        }
+        return (StringColumn) columns[column];
+    }
+
+    public final class Cursor {
+        private int row = -1;
+
+        private Cursor() {
+        }
+
+        public boolean next() {
+            if (row < rowCount) {
+                row++;
+            }
+            return row < rowCount;
+        }
+
+        public void moveTo(int row) {
+            if (row < 0 || row >= rowCount) {
+                throw new IndexOutOfBoundsException("Row " + row + " outside 0.." + (rowCount - 1));
+            }
+            this.row = row;
+        }
+
+        public int getRow() {
+            return row;
+        }
+
+        public boolean isNull(int column) {
+            return columns[column].isNull(row);
+        }
+
+        public int getInt(int column) {
+            return Math.toIntExact(columns[column].getLong(row));
+        }
+
+        public long getLong(int column) {
+            return columns[column].getLong(row);
+        }
+
+        public double getDouble(int column) {
+            return columns[column].getDouble(row);
+        }
+
+        public String getString(int column) {
+            return columns[column].isNull(row) ? null : columns[column].getString(row);
+        }
+
+        public int getDictionaryCode(int column) {
+            return dictionaryColumn(column).code(row);
+        }
+    }
+
+    private abstract static class Column {
+        final ColumnType type;
+        BitSet nulls;
+
+        Column(ColumnType type) {
+            this.type = type;
+        }
+
+        abstract void append(ResultSet resultSet, int index, int row) throws SQLException;
+
+        abstract void freeze(int rowCount);
+
+        abstract long heapBytes();
+
+        abstract long offHeapBytes();
+
+        long getLong(int row) {
+            throw new IllegalStateException("Column of type " + type + " has no numeric value");
+        }
+
+        double getDouble(int row) {
+            return getLong(row);
+        }
+
+        abstract String getString(int row);
+
+        boolean isNull(int row) {
+            return nulls != null && nulls.get(row);
+        }
+
+        void markNull(int row) {
+            if (nulls == null) {
+                nulls = new BitSet();
+            }
+            nulls.set(row);
+        }
+
+        long nullsHeapBytes() {
+            return nulls == null ? 0 : OBJECT_HEADER * 2L + nulls.size() / 8;
+        }
+    }
+
+    private static final class NumericColumn extends Column {
+        private final int width;
+        private final Buffer values;
+
+        NumericColumn(ColumnType type, boolean direct, int initialCapacity) {
+            super(type);
+            this.width = type == ColumnType.INT ? Integer.BYTES : Long.BYTES;
+            this.values = new Buffer(direct, initialCapacity * width);
+        }
+
+        @Override
+        void append(ResultSet resultSet, int index, int row) throws SQLException {
+            int offset = values.reserve(row * width, width);
+            switch (type) {
+                case INT -> values.bytes.putInt(offset, resultSet.getInt(index));
+                case LONG -> values.bytes.putLong(offset, resultSet.getLong(index));
+                default -> values.bytes.putDouble(offset, resultSet.getDouble(index));
+            }
+            if (resultSet.wasNull()) {
+                markNull(row);
+            }
+        }
+
+        @Override
+        void freeze(int rowCount) {
+            values.trim(rowCount * width);
+        }
+
+        @Override
+        long heapBytes() {
+            return OBJECT_HEADER * 2L + values.heapBytes() + nullsHeapBytes();
+        }
+
+        @Override
+        long offHeapBytes() {
+            return values.offHeapBytes();
+        }
+
+        @Override
+        long getLong(int row) {
+            return switch (type) {
+                case INT -> values.bytes.getInt(row * width);
+                case LONG -> values.bytes.getLong(row * width);
+                default -> (long) values.bytes.getDouble(row * width);
+            };
+        }
+
+        @Override
+        double getDouble(int row) {
+            return type == ColumnType.DOUBLE ? values.bytes.getDouble(row * width) : getLong(row);
+        }
+
+        @Override
+        String getString(int row) {
+            return type == ColumnType.DOUBLE ? String.valueOf(getDouble(row)) : String.valueOf(getLong(row));
+        }
+    }
+
+    private static final class StringColumn extends Column {
+        private final boolean direct;
+        private final int maxDictionarySize;
+        private Map<String, Integer> dictionaryCodes = new HashMap<>();
+        private List<String> dictionaryValues = new ArrayList<>();
+        private String[] dictionary;
+        private Buffer codes;
+        private int codeWidth = Integer.BYTES;
+        private Buffer data;
+        private Buffer endOffsets;
+
+        StringColumn(boolean direct, int initialCapacity, int maxDictionarySize) {
+            super(ColumnType.STRING);
+            this.direct = direct;
+            this.maxDictionarySize = maxDictionarySize;
+            if (maxDictionarySize > 0) {
+                codes = new Buffer(direct, initialCapacity * Integer.BYTES);
+            } else {
+                dictionaryCodes = null;
+                dictionaryValues = null;
+                data = new Buffer(direct, initialCapacity * 16);
+                endOffsets = new Buffer(direct, initialCapacity * Integer.BYTES);
+            }
+        }
+
+        @Override
+        void append(ResultSet resultSet, int index, int row) throws SQLException {
+            String value = resultSet.getString(index);
+            if (value == null) {
+                markNull(row);
+            }
+            if (dictionaryCodes != null) {
+                Integer code = value == null ? Integer.valueOf(0) : dictionaryCodes.get(value);
+                if (code == null && dictionaryValues.size() < maxDictionarySize) {
+                    code = dictionaryValues.size();
+                    dictionaryCodes.put(value, code);
+                    dictionaryValues.add(value);
+                }
+                if (code != null) {
+                    int offset = codes.reserve(row * Integer.BYTES, Integer.BYTES);
+                    codes.bytes.putInt(offset, code);
+                    return;
+                }
+                convertToPlain(row);
+            }
+            appendPlain(value, row);
+        }
+
+        private void convertToPlain(int rowCount) {
+            data = new Buffer(direct, (int) Math.min(1 << 20, (rowCount + 1) * 16L));
+            endOffsets = new Buffer(direct, (rowCount + 1) * Integer.BYTES);
+            for (int row = 0; row < rowCount; row++) {
+                appendPlain(isNull(row) ? null : dictionaryValues.get(codes.bytes.getInt(row * Integer.BYTES)), row);
+            }
+            dictionaryCodes = null;
+            dictionaryValues = null;
+            codes = null;
+        }
+
+        private void appendPlain(String value, int row) {
+            int start = row == 0 ? 0 : endOffsets.bytes.getInt((row - 1) * Integer.BYTES);
+            int end = start;
+            if (value != null) {
+                byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+                data.reserve(start, utf8.length);
+                data.bytes.put(start, utf8);
+                end += utf8.length;
+            }
+            int offset = endOffsets.reserve(row * Integer.BYTES, Integer.BYTES);
+            endOffsets.bytes.putInt(offset, end);
+        }
+
+        @Override
+        void freeze(int rowCount) {
+            if (dictionaryValues == null) {
+                data.trim(rowCount == 0 ? 0 : endOffsets.bytes.getInt((rowCount - 1) * Integer.BYTES));
+                endOffsets.trim(rowCount * Integer.BYTES);
+                return;
+            }
+            dictionary = dictionaryValues.toArray(String[]::new);
+            dictionaryCodes = null;
+            dictionaryValues = null;
+            codeWidth = dictionary.length <= 1 << Byte.SIZE ? Byte.BYTES
+                    : dictionary.length <= 1 << Short.SIZE ? Short.BYTES : Integer.BYTES;
+            if (codeWidth == Integer.BYTES) {
+                codes.trim(rowCount * Integer.BYTES);
+                return;
+            }
+            Buffer narrowed = new Buffer(direct, rowCount * codeWidth);
+            for (int row = 0; row < rowCount; row++) {
+                int code = codes.bytes.getInt(row * Integer.BYTES);
+                if (codeWidth == Byte.BYTES) {
+                    narrowed.bytes.put(row, (byte) code);
+                } else {
+                    narrowed.bytes.putShort(row * Short.BYTES, (short) code);
+                }
+            }
+            codes = narrowed;
+        }
+
+        int code(int row) {
+            return switch (codeWidth) {
+                case Byte.BYTES -> Byte.toUnsignedInt(codes.bytes.get(row));
+                case Short.BYTES -> Short.toUnsignedInt(codes.bytes.getShort(row * Short.BYTES));
+                default -> codes.bytes.getInt(row * Integer.BYTES);
+            };
+        }
+
+        @Override
+        String getString(int row) {
+            if (dictionary != null) {
+                return dictionary[code(row)];
+            }
+            int start = row == 0 ? 0 : endOffsets.bytes.getInt((row - 1) * Integer.BYTES);
+            int end = endOffsets.bytes.getInt(row * Integer.BYTES);
+            byte[] utf8 = new byte[end - start];
+            data.bytes.get(start, utf8);
+            return new String(utf8, StandardCharsets.UTF_8);
+        }
+
+        @Override
+        long heapBytes() {
+            long bytes = OBJECT_HEADER * 2L + nullsHeapBytes();
+            if (dictionary != null) {
+                bytes += OBJECT_HEADER + dictionary.length * 8L + codes.heapBytes();
+                for (String value : dictionary) {
+                    bytes += value == null ? 0 : STRING_HEAP_OVERHEAD + value.length();
+                }
+                return bytes;
+            }
+            return bytes + data.heapBytes() + endOffsets.heapBytes();
+        }
+
+        @Override
+        long offHeapBytes() {
+            return dictionary != null ? codes.offHeapBytes() : data.offHeapBytes() + endOffsets.offHeapBytes();
+        }
+    }
+
+    private static final class Buffer {
+        private final boolean direct;
+        private ByteBuffer bytes;
+
+        Buffer(boolean direct, int capacity) {
+            this.direct = direct;
+            this.bytes = allocate(capacity);
+        }
+
+        int reserve(int offset, int length) {
+            int required = Math.addExact(offset, length);
+            if (required > bytes.capacity()) {
+                resize(Math.max(required, (int) Math.min(Integer.MAX_VALUE - 8, bytes.capacity() * 2L)), offset);
+            }
+            return offset;
+        }
+
+        void trim(int size) {
+            if (size < bytes.capacity()) {
+                resize(size, size);
+            }
+        }
+
+        private void resize(int capacity, int used) {
+            ByteBuffer resized = allocate(capacity);
+            resized.put(0, bytes, 0, used);
+            bytes = resized;
+        }
+
+        private ByteBuffer allocate(int capacity) {
+            return (direct ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity))
+                    .order(ByteOrder.nativeOrder());
+        }
+
+        long heapBytes() {
+            return OBJECT_HEADER * 4L + (direct ? 0 : bytes.capacity());
+        }
+
+        long offHeapBytes() {
+            return direct ? bytes.capacity() : 0;
+        }
+    }
+}
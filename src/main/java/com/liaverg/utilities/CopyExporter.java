@@ -0,0 +1,80 @@
+package com.liaverg.utilities;
+
+import com.liaverg.utilities.CopyLoader.Format;
+import org.postgresql.PGConnection;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.zip.GZIPOutputStream;
+
+public class CopyExporter {
+    public static final int DEFAULT_BUFFER_SIZE = CopyLoader.DEFAULT_BUFFER_SIZE;
+
+    public enum Compression {
+        NONE, GZIP
+    }
+
+    public record ExportResult(long rowCount, long byteCount, long writtenByteCount, Duration elapsed) {
+        public double rowsPerSecond() {
+            return perSecond(rowCount);
+        }
+
+        public double bytesPerSecond() {
+            return perSecond(byteCount);
+        }
+
+        public double compressionRatio() {
+            return writtenByteCount == 0 ? 1.0 : (double) byteCount / writtenByteCount;
+        }
+
+        private double perSecond(long count) {
+            long nanos = Math.max(elapsed.toNanos(), 1);
+            return count * 1_000_000_000.0 / nanos;
+        }
+    }
+
+    private CopyExporter() {
+    }
+
+    public static ExportResult export(String source, Format format, Path file, Compression compression) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            return export(source, format, channel, compression);
+        } catch (IOException e) {
+            throw new RuntimeException("Error during export to " + file, e);
+        }
+    }
+
+    public static ExportResult export(String source, Format format, WritableByteChannel channel,
+                                      Compression compression) {
+        return DbUtils.executeReadOnly(conn -> export(conn, source, format, channel, compression));
+    }
+
+    public static ExportResult export(Connection conn, String source, Format format, WritableByteChannel channel,
+                                      Compression compression) throws SQLException {
+        String copySQL = "COPY " + source + " TO STDOUT WITH (FORMAT " + format.name().toLowerCase() + ")";
+        long start = System.nanoTime();
+        CountingOutputStream writtenStream = new CountingOutputStream(
+                new ChannelOutputStream(channel, DEFAULT_BUFFER_SIZE));
+        long rowCount;
+        long byteCount;
+        try (OutputStream target = compression == Compression.GZIP
+                ? new GZIPOutputStream(writtenStream, DEFAULT_BUFFER_SIZE)
+                : writtenStream) {
+            CountingOutputStream copyStream = new CountingOutputStream(target);
+            rowCount = conn.unwrap(PGConnection.class).getCopyAPI().copyOut(copySQL, copyStream);
+            byteCount = copyStream.getByteCount();
+        } catch (IOException e) {
+            throw new SQLException("Error during COPY from " + source, e);
+        }
+        return new ExportResult(rowCount, byteCount, writtenStream.getByteCount(),
+                Duration.ofNanos(System.nanoTime() - start));
+    }
+}
@@ -0,0 +1,173 @@
+package com.liaverg.utilities;
+
+import org.postgresql.PGConnection;
+import org.postgresql.copy.PGCopyOutputStream;
+
+import java.io.BufferedWriter;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+public class CopyLoader {
+    public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    private static final byte[] BINARY_SIGNATURE = {'P', 'G', 'C', 'O', 'P', 'Y', '\n', (byte) 0xFF, '\r', '\n', 0};
+
+    public enum Format {
+        CSV, BINARY
+    }
+
+    public record CopyResult(long rowCount, long byteCount, Duration elapsed) {
+        public double rowsPerSecond() {
+            return perSecond(rowCount);
+        }
+
+        public double bytesPerSecond() {
+            return perSecond(byteCount);
+        }
+
+        private double perSecond(long count) {
+            long nanos = Math.max(elapsed.toNanos(), 1);
+            return count * 1_000_000_000.0 / nanos;
+        }
+    }
+
+    private CopyLoader() {
+    }
+
+    public static CopyResult load(String table, List<String> columns, Stream<Object[]> rows, Format format) {
+        return DbUtils.executeInTransactionOnce(conn -> load(conn, table, columns, rows, format));
+    }
+
+    public static CopyResult load(Connection conn, String table, List<String> columns,
+                                  Stream<Object[]> rows, Format format) throws SQLException {
+        String copySQL = "COPY " + table + " (" + String.join(", ", columns) + ") FROM STDIN WITH (FORMAT "
+                + format.name().toLowerCase() + ")";
+        long start = System.nanoTime();
+        PGCopyOutputStream copyStream = new PGCopyOutputStream(
+                conn.unwrap(PGConnection.class).getCopyAPI().copyIn(copySQL), DEFAULT_BUFFER_SIZE);
+        CountingOutputStream countingStream = new CountingOutputStream(copyStream);
+        try (rows) {
+            if (format == Format.BINARY) {
+                writeBinary(countingStream, columns.size(), rows.iterator());
+            } else {
+                writeCsv(countingStream, columns.size(), rows.iterator());
+            }
+            long rowCount = copyStream.endCopy();
+            DbUtils.recordWrite(QueryResultCache.writeTable(copySQL), conn);
+            return new CopyResult(rowCount, countingStream.getByteCount(), Duration.ofNanos(System.nanoTime() - start));
+        } catch (IOException | RuntimeException e) {
+            if (copyStream.isActive()) {
+                try {
+                    copyStream.cancelCopy();
+                } catch (SQLException cancelException) {
+                    e.addSuppressed(cancelException);
+                }
+            }
+            throw new SQLException("Error during COPY into " + table, e);
+        }
+    }
+
+    private static void writeCsv(CountingOutputStream out, int columnCount, Iterator<Object[]> rows)
+            throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), DEFAULT_BUFFER_SIZE);
+        while (rows.hasNext()) {
+            Object[] row = checkColumnCount(rows.next(), columnCount);
+            for (int i = 0; i < row.length; i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                writeCsvValue(writer, row[i]);
+            }
+            writer.write('\n');
+        }
+        writer.flush();
+    }
+
+    private static void writeCsvValue(Writer writer, Object value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        String text = value instanceof byte[] bytes ? toHexLiteral(bytes) : value.toString();
+        if (!text.isEmpty() && text.chars().noneMatch(c -> c == ',' || c == '"' || c == '\n' || c == '\r')) {
+            writer.write(text);
+            return;
+        }
+        writer.write('"');
+        writer.write(text.replace("\"", "\"\""));
+        writer.write('"');
+    }
+
+    private static String toHexLiteral(byte[] bytes) {
+        StringBuilder hex = new StringBuilder(2 + bytes.length * 2).append("\\x");
+        for (byte b : bytes) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+
+    private static void writeBinary(CountingOutputStream out, int columnCount, Iterator<Object[]> rows)
+            throws IOException {
+        DataOutputStream data = new DataOutputStream(out);
+        data.write(BINARY_SIGNATURE);
+        data.writeInt(0);
+        data.writeInt(0);
+        while (rows.hasNext()) {
+            Object[] row = checkColumnCount(rows.next(), columnCount);
+            data.writeShort(row.length);
+            for (Object value : row) {
+                writeBinaryValue(data, value);
+            }
+        }
+        data.writeShort(-1);
+        data.flush();
+    }
+
+    private static void writeBinaryValue(DataOutputStream data, Object value) throws IOException {
+        if (value == null) {
+            data.writeInt(-1);
+        } else if (value instanceof String text) {
+            byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+            data.writeInt(bytes.length);
+            data.write(bytes);
+        } else if (value instanceof Integer number) {
+            data.writeInt(Integer.BYTES);
+            data.writeInt(number);
+        } else if (value instanceof Long number) {
+            data.writeInt(Long.BYTES);
+            data.writeLong(number);
+        } else if (value instanceof Short number) {
+            data.writeInt(Short.BYTES);
+            data.writeShort(number);
+        } else if (value instanceof Double number) {
+            data.writeInt(Double.BYTES);
+            data.writeDouble(number);
+        } else if (value instanceof Float number) {
+            data.writeInt(Float.BYTES);
+            data.writeFloat(number);
+        } else if (value instanceof Boolean flag) {
+            data.writeInt(1);
+            data.writeBoolean(flag);
+        } else if (value instanceof byte[] bytes) {
+            data.writeInt(bytes.length);
+            data.write(bytes);
+        } else {
+            throw new IllegalArgumentException("Unsupported type for binary COPY: " + value.getClass().getName());
+        }
+    }
+
+    private static Object[] checkColumnCount(Object[] row, int columnCount) {
+        if (row.length != columnCount) {
+            throw new IllegalArgumentException("Expected " + columnCount + " values per row but got " + row.length);
+        }
+        return row;
+    }
+}
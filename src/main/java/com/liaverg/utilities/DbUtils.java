@@ -1,16 +1,143 @@
 package com.liaverg.utilities;
 
+import com.liaverg.metrics.ConnectionHoldProfiler;
+import com.liaverg.metrics.DbMetrics;
+
 import javax.sql.DataSource;
 import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Savepoint;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public class DbUtils {
+    public static final int DEFAULT_BATCH_SIZE = 500;
+    public static final int DEFAULT_FETCH_SIZE = 1000;
+    public static final int DEFAULT_MAX_CONCURRENCY = 10;
+    public static final int DEFAULT_ISOLATION = -1;
+
+    public static final String DEFAULT_NAME = "default";
+
     private static DataSource dataSource;
-    private static final ThreadLocal<Connection> connection = ThreadLocal.withInitial(() -> null);
-    private static final ThreadLocal<Boolean> isTransactionSuccessful = ThreadLocal.withInitial(() -> true);
+    private static final Map<String, DbUtils> registry = new ConcurrentHashMap<>();
+    private static final ThreadLocal<DbUtils> boundInstance = new ThreadLocal<>();
+    private static final ThreadLocal<TransactionContext> transaction = new ThreadLocal<>();
+    private static volatile int statementCacheSize = StatementCache.DEFAULT_SIZE;
+    private static volatile RetryPolicy retryPolicy = RetryPolicy.DEFAULT;
+    private static AsyncExecutor asyncExecutor;
+    private static volatile ReplicaRouter replicaRouter;
+    private static volatile QueryResultCache queryResultCache;
+    private static volatile GroupCommitExecutor groupCommitExecutor;
+
+    private final String name;
+    private final DataSource boundDataSource;
 
     public DbUtils(DataSource dataSource){
-        this.dataSource = dataSource;
+        this(DEFAULT_NAME, dataSource);
+        DbUtils.dataSource = dataSource;
+        registry.put(DEFAULT_NAME, this);
+    }
+
+    private DbUtils(String name, DataSource dataSource) {
+        this.name = name;
+        this.boundDataSource = dataSource;
+    }
+
+    public static DbUtils register(String name, DataSource dataSource) {
+        DbUtils instance = new DbUtils(name, dataSource);
+        registry.put(name, instance);
+        return instance;
+    }
+
+    public static DbUtils named(String name) {
+        DbUtils instance = registry.get(name);
+        if (instance == null) {
+            throw new IllegalArgumentException("No data source registered as " + name);
+        }
+        return instance;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public <T> T call(Supplier<T> call) {
+        DbUtils previous = boundInstance.get();
+        boundInstance.set(this);
+        try {
+            return call.get();
+        } finally {
+            if (previous == null) {
+                boundInstance.remove();
+            } else {
+                boundInstance.set(previous);
+            }
+        }
+    }
+
+    public void run(Runnable call) {
+        call(() -> {
+            call.run();
+            return null;
+        });
+    }
+
+    public <T> T inTransaction(ConnectionFunction<T> function) {
+        return call(() -> executeStatementsInTransactionWithResult(function));
+    }
+
+    public <T> T withConnection(ConnectionFunction<T> function) {
+        return call(() -> executeStatementsWithResult(function));
+    }
+
+    public <T> List<T> query(String sql, List<?> parameters, RowMapper<T> rowMapper) {
+        return call(() -> queryList(sql, parameters, rowMapper));
+    }
+
+    public <T> CompletableFuture<T> withConnectionAsync(ConnectionFunction<T> function) {
+        return call(() -> executeAsync(function));
+    }
+
+    private static boolean isBoundToOtherDataSource() {
+        DbUtils instance = boundInstance.get();
+        return instance != null && instance.boundDataSource != dataSource;
+    }
+
+    private static DataSource currentDataSource() {
+        DbUtils instance = boundInstance.get();
+        return instance == null ? dataSource : instance.boundDataSource;
+    }
+
+    private static TransactionContext currentTransaction() {
+        TransactionContext context = transaction.get();
+        if (context != null && context.dataSource != currentDataSource()) {
+            throw new IllegalStateException("A transaction is already active on another data source");
+        }
+        return context;
+    }
+
+    static <T> Supplier<T> propagateBinding(Supplier<T> call) {
+        DbUtils instance = boundInstance.get();
+        return instance == null ? call : () -> instance.call(call);
+    }
+
+    public enum Propagation {
+        REQUIRED, NESTED
     }
 
     @FunctionalInterface
@@ -23,12 +150,40 @@ public class DbUtils {
         T apply(Connection connection) throws SQLException;
     }
 
+    @FunctionalInterface
+    public interface ParameterBinder {
+        void bind(PreparedStatement statement) throws SQLException;
+    }
+
+    @FunctionalInterface
+    public interface RowMapper<T> {
+        T map(ResultSet resultSet) throws SQLException;
+    }
+
     public static void executeStatements(ConnectionConsumer consumer) {
-        try (Connection connection = dataSource.getConnection()) {
+        try (Connection connection = Deadline.getConnection(currentDataSource())) {
+            ConnectionHoldProfiler.Hold hold = ConnectionHoldProfiler.getInstance().startHold();
             try {
                 consumer.accept(connection);
             } catch (SQLException ex) {
                 throw new RuntimeException("Error during statement execution", ex);
+            } finally {
+                ConnectionHoldProfiler.getInstance().endHold(hold);
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Error during database connection", e);
+        }
+    }
+
+    public static <T> T executeStatementsWithResult(ConnectionFunction<T> function) {
+        try (Connection connection = Deadline.getConnection(currentDataSource())) {
+            ConnectionHoldProfiler.Hold hold = ConnectionHoldProfiler.getInstance().startHold();
+            try {
+                return function.apply(connection);
+            } catch (SQLException ex) {
+                throw new RuntimeException("Error during statement execution", ex);
+            } finally {
+                ConnectionHoldProfiler.getInstance().endHold(hold);
             }
         } catch (SQLException e) {
             throw new RuntimeException("Error during database connection", e);
@@ -36,73 +191,601 @@ public class DbUtils {
     }
 
     public static void executeStatementsInTransaction(ConnectionConsumer consumer) {
-        boolean isOuterTransaction = false;
+        executeStatementsInTransaction(consumer, Propagation.REQUIRED);
+    }
 
-        try {
-            if (!isTransactionActive()) {
-                isOuterTransaction = true;
-                startTransaction();
+    public static void executeStatementsInTransaction(ConnectionConsumer consumer, Propagation propagation) {
+        executeInTransaction(toFunction(consumer), propagation, DEFAULT_ISOLATION);
+    }
+
+    public static void executeStatementsInTransaction(ConnectionConsumer consumer, int isolationLevel) {
+        executeInTransaction(toFunction(consumer), Propagation.REQUIRED, isolationLevel);
+    }
+
+    public static <T> T executeStatementsInTransactionWithResult(ConnectionFunction<T> consumer) {
+        return executeStatementsInTransactionWithResult(consumer, Propagation.REQUIRED);
+    }
+
+    public static <T> T executeStatementsInTransactionWithResult(ConnectionFunction<T> consumer,
+                                                                 Propagation propagation) {
+        return executeInTransaction(consumer, propagation, DEFAULT_ISOLATION);
+    }
+
+    public static <T> T executeStatementsInTransactionWithResult(ConnectionFunction<T> consumer,
+                                                                 int isolationLevel) {
+        return executeInTransaction(consumer, Propagation.REQUIRED, isolationLevel);
+    }
+
+    public static <T> T withDeadline(Duration budget, Supplier<T> call) {
+        return Deadline.run(budget, call);
+    }
+
+    public static void withDeadline(Duration budget, Runnable call) {
+        Deadline.run(budget, () -> {
+            call.run();
+            return null;
+        });
+    }
+
+    public static int getTransactionDepth() {
+        TransactionContext context = transaction.get();
+        return context == null ? 0 : context.depth;
+    }
+
+    public static void setRetryPolicy(RetryPolicy policy) {
+        retryPolicy = policy;
+    }
+
+    private static ConnectionFunction<Void> toFunction(ConnectionConsumer consumer) {
+        return conn -> {
+            consumer.accept(conn);
+            return null;
+        };
+    }
+
+    private static <T> T executeInTransaction(ConnectionFunction<T> function, Propagation propagation,
+                                              int isolationLevel) {
+        TransactionContext context = currentTransaction();
+        if (context == null) {
+            return executeOuterTransactionWithRetry(function, isolationLevel);
+        }
+        if (isolationLevel != DEFAULT_ISOLATION && isolationLevel != context.isolationLevel) {
+            throw new IllegalStateException("Nested transaction cannot change the isolation level of the outer transaction");
+        }
+        return propagation == Propagation.NESTED
+                ? executeWithSavepoint(context, function)
+                : executeJoinedTransaction(context, function);
+    }
+
+    static <T> T executeInTransactionOnce(ConnectionFunction<T> function) {
+        if (currentTransaction() != null) {
+            return executeInTransaction(function, Propagation.REQUIRED, DEFAULT_ISOLATION);
+        }
+        return executeOuterTransaction(function, DEFAULT_ISOLATION);
+    }
+
+    private static <T> T executeOuterTransactionWithRetry(ConnectionFunction<T> function, int isolationLevel) {
+        RetryPolicy policy = retryPolicy;
+        policy.recordTransaction();
+        for (int attempt = 1; ; attempt++) {
+            try {
+                T result = executeOuterTransaction(function, isolationLevel);
+                if (attempt > 1) {
+                    DbMetrics.getInstance().recordRetriedSuccess();
+                }
+                return result;
+            } catch (RuntimeException e) {
+                Deadline deadline = Deadline.current();
+                if (!RetryPolicy.isRetryable(e) || deadline != null && deadline.isExpired()) {
+                    throw e;
+                }
+                if (attempt >= policy.getMaxAttempts() || !policy.tryAcquireRetry()) {
+                    DbMetrics.getInstance().recordRetryExhausted();
+                    throw e;
+                }
+                DbMetrics.getInstance().recordRetry();
+                long backoffNanos = policy.backoffNanos(attempt);
+                if (deadline != null) {
+                    backoffNanos = Math.min(backoffNanos, deadline.remaining().toNanos());
+                }
+                try {
+                    TimeUnit.NANOSECONDS.sleep(backoffNanos);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    e.addSuppressed(interrupted);
+                    throw e;
+                }
             }
+        }
+    }
+
+    private static <T> T executeOuterTransaction(ConnectionFunction<T> function, int isolationLevel) {
+        try {
+            TransactionContext context = startTransaction(isolationLevel);
             try {
-                consumer.accept(connection.get());
+                return function.apply(context.connection);
             } catch (SQLException ex) {
-                isTransactionSuccessful.set(false);
+                context.rollbackOnly = true;
                 throw new RuntimeException("Error during statement execution", ex);
             } finally {
-                if (isOuterTransaction) {
-                    completeOuterTransaction();
+                completeOuterTransaction(context);
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Error during database connection", e);
+        }
+    }
+
+    private static <T> T executeJoinedTransaction(TransactionContext context, ConnectionFunction<T> function) {
+        context.depth++;
+        try {
+            return function.apply(context.connection);
+        } catch (SQLException ex) {
+            context.rollbackOnly = true;
+            throw new RuntimeException("Error during statement execution", ex);
+        } finally {
+            context.depth--;
+        }
+    }
+
+    private static <T> T executeWithSavepoint(TransactionContext context, ConnectionFunction<T> function) {
+        boolean wasRollbackOnly = context.rollbackOnly;
+        context.depth++;
+        try {
+            Savepoint savepoint = context.connection.setSavepoint();
+            try {
+                T result = function.apply(context.connection);
+                context.connection.releaseSavepoint(savepoint);
+                return result;
+            } catch (SQLException | RuntimeException ex) {
+                context.connection.rollback(savepoint);
+                context.connection.releaseSavepoint(savepoint);
+                context.rollbackOnly = wasRollbackOnly;
+                if (ex instanceof RuntimeException runtimeException) {
+                    throw runtimeException;
                 }
+                throw new RuntimeException("Error during statement execution", ex);
             }
         } catch (SQLException e) {
+            context.rollbackOnly = true;
             throw new RuntimeException("Error during database connection", e);
+        } finally {
+            context.depth--;
         }
     }
 
-    public static <T> T executeStatementsInTransactionWithResult(ConnectionFunction<T> consumer) {
-        T result = null;
-        boolean isOuterTransaction = false;
+    public static synchronized void setMaxConcurrency(int maxConcurrency) {
+        if (asyncExecutor != null) {
+            asyncExecutor.setMaxConcurrency(maxConcurrency);
+        } else {
+            asyncExecutor = new AsyncExecutor(maxConcurrency);
+        }
+    }
+
+    public static <T> CompletableFuture<T> executeAsync(ConnectionFunction<T> function) {
+        return getAsyncExecutor().submit(
+                Deadline.propagate(propagateBinding(() -> executeStatementsWithResult(function))));
+    }
+
+    public static <T> CompletableFuture<T> executeInTransactionAsync(ConnectionFunction<T> function) {
+        if (currentTransaction() != null) {
+            try {
+                return CompletableFuture.completedFuture(executeStatementsInTransactionWithResult(function));
+            } catch (RuntimeException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+        return getAsyncExecutor().submit(
+                Deadline.propagate(propagateBinding(() -> executeStatementsInTransactionWithResult(function))));
+    }
+
+    public static synchronized void setGroupCommitExecutor(GroupCommitExecutor executor) {
+        if (groupCommitExecutor != null && groupCommitExecutor != executor) {
+            groupCommitExecutor.close();
+        }
+        groupCommitExecutor = executor;
+    }
+
+    public static <T> CompletableFuture<T> executeInGroupCommit(ConnectionFunction<T> function) {
+        GroupCommitExecutor executor = groupCommitExecutor;
+        if (executor == null || isBoundToOtherDataSource() || currentTransaction() != null
+                || Deadline.current() != null) {
+            return executeInTransactionAsync(function);
+        }
+        return executor.submit(function);
+    }
+
+    private static synchronized AsyncExecutor getAsyncExecutor() {
+        if (asyncExecutor == null) {
+            asyncExecutor = new AsyncExecutor(DEFAULT_MAX_CONCURRENCY);
+        }
+        return asyncExecutor;
+    }
+
+    public static List<int[]> executeBatch(String sql, Iterable<ParameterBinder> binders) {
+        return executeBatch(sql, binders, DEFAULT_BATCH_SIZE);
+    }
+
+    public static List<int[]> executeBatch(String sql, Stream<ParameterBinder> binders, int batchSize) {
+        try (binders) {
+            Iterator<ParameterBinder> iterator = binders.iterator();
+            return executeInTransactionOnce(batchFunction(sql, () -> iterator, batchSize));
+        }
+    }
+
+    public static List<int[]> executeBatch(String sql, Iterable<ParameterBinder> binders, int batchSize) {
+        return executeStatementsInTransactionWithResult(batchFunction(sql, binders, batchSize));
+    }
+
+    private static ConnectionFunction<List<int[]>> batchFunction(String sql, Iterable<ParameterBinder> binders,
+                                                                 int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be positive: " + batchSize);
+        }
+        return conn -> {
+            List<int[]> updateCounts = new ArrayList<>();
+            try (PreparedStatement statement = conn.prepareStatement(sql)) {
+                int pending = 0;
+                for (ParameterBinder binder : binders) {
+                    binder.bind(statement);
+                    statement.addBatch();
+                    if (++pending == batchSize) {
+                        updateCounts.add(statement.executeBatch());
+                        pending = 0;
+                    }
+                }
+                if (pending > 0) {
+                    updateCounts.add(statement.executeBatch());
+                }
+            }
+            return updateCounts;
+        };
+    }
+
+    public static <T> Stream<T> queryStream(String sql, RowMapper<T> rowMapper) {
+        return queryStream(sql, statement -> {}, rowMapper, DEFAULT_FETCH_SIZE);
+    }
+
+    public static <T> Stream<T> queryStream(String sql, ParameterBinder binder, RowMapper<T> rowMapper,
+                                            int fetchSize) {
+        if (fetchSize <= 0) {
+            throw new IllegalArgumentException("Fetch size must be positive: " + fetchSize);
+        }
+        boolean isOwnConnection = false;
+        Runnable releaseReplica = () -> {};
+        Connection conn = null;
+        PreparedStatement statement = null;
+        ResultSet resultSet = null;
+        try {
+            TransactionContext context = currentTransaction();
+            if (context != null) {
+                conn = context.connection;
+            } else {
+                isOwnConnection = true;
+                ReplicaRouter router = isBoundToOtherDataSource() ? null : replicaRouter;
+                if (router != null) {
+                    int replica = router.acquire();
+                    releaseReplica = () -> router.release(replica);
+                    conn = Deadline.getConnection(router.getDataSource(replica));
+                    conn.setReadOnly(true);
+                } else {
+                    conn = Deadline.getConnection(currentDataSource());
+                }
+                conn.setAutoCommit(false);
+            }
+            statement = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(fetchSize);
+            binder.bind(statement);
+            resultSet = statement.executeQuery();
+        } catch (SQLException ex) {
+            closeCursorAfterFailure(conn, statement, resultSet, isOwnConnection, releaseReplica, ex);
+            throw new RuntimeException("Error during statement execution", ex);
+        } catch (RuntimeException ex) {
+            closeCursorAfterFailure(conn, statement, resultSet, isOwnConnection, releaseReplica, ex);
+            throw ex;
+        }
+
+        Connection cursorConnection = conn;
+        PreparedStatement cursorStatement = statement;
+        ResultSet cursorResultSet = resultSet;
+        boolean closeConnection = isOwnConnection;
+        Runnable releaseCursorReplica = releaseReplica;
+        return StreamSupport.stream(new ResultSetSpliterator<>(resultSet, rowMapper), false)
+                .onClose(() -> {
+                    try {
+                        closeCursor(cursorConnection, cursorStatement, cursorResultSet, closeConnection,
+                                releaseCursorReplica, false);
+                    } catch (SQLException e) {
+                        throw new RuntimeException("Error during database connection", e);
+                    }
+                });
+    }
+
+    private static void closeCursorAfterFailure(Connection conn, Statement statement, ResultSet resultSet,
+                                                boolean isOwnConnection, Runnable releaseReplica,
+                                                Exception failure) {
         try {
-            if (!isTransactionActive()) {
-                isOuterTransaction = true;
-                startTransaction();
+            closeCursor(conn, statement, resultSet, isOwnConnection, releaseReplica, true);
+        } catch (SQLException | RuntimeException closeException) {
+            failure.addSuppressed(closeException);
+        }
+    }
+
+    private static void closeCursor(Connection conn, Statement statement, ResultSet resultSet,
+                                    boolean isOwnConnection, Runnable releaseReplica, boolean failed)
+            throws SQLException {
+        try (Connection ownConnection = isOwnConnection ? conn : null) {
+            try {
+                if (resultSet != null) {
+                    resultSet.close();
+                }
+            } finally {
+                if (statement != null) {
+                    statement.close();
+                }
+            }
+            if (ownConnection != null) {
+                if (failed) {
+                    ownConnection.rollback();
+                } else {
+                    ownConnection.commit();
+                }
+                ownConnection.setAutoCommit(true);
+                ownConnection.setReadOnly(false);
             }
+        } finally {
+            releaseReplica.run();
+        }
+    }
+
+    public static <T> ChunkedProcessor.Progress processInChunks(String table, String keyColumn,
+                                                               RowMapper<T> rowMapper,
+                                                               ChunkedProcessor.Checkpoint checkpoint,
+                                                               ChunkedProcessor.Settings settings,
+                                                               ChunkedProcessor.ChunkHandler<T> handler) {
+        return new ChunkedProcessor<>(table, keyColumn, rowMapper, checkpoint, settings).process(handler);
+    }
+
+    public static void setReplicaRouter(ReplicaRouter router) {
+        replicaRouter = router;
+    }
+
+    public static <T> T executeReadOnly(ConnectionFunction<T> function) {
+        if (currentTransaction() != null) {
+            return executeStatementsInTransactionWithResult(function);
+        }
+        ReplicaRouter router = isBoundToOtherDataSource() ? null : replicaRouter;
+        if (router == null) {
+            return executeStatementsWithResult(function);
+        }
+        int replica = router.acquire();
+        try (Connection conn = Deadline.getConnection(router.getDataSource(replica))) {
+            conn.setReadOnly(true);
             try {
-                result = consumer.apply(connection.get());
+                return function.apply(conn);
             } catch (SQLException ex) {
-                isTransactionSuccessful.set(false);
                 throw new RuntimeException("Error during statement execution", ex);
             } finally {
-                if (isOuterTransaction) {
-                    completeOuterTransaction();
+                conn.setReadOnly(false);
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Error during database connection", e);
+        } finally {
+            router.release(replica);
+        }
+    }
+
+    public static void setQueryResultCache(QueryResultCache cache) {
+        queryResultCache = cache;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <T> List<T> executeCachedQuery(String sql, List<?> parameters, RowMapper<T> rowMapper) {
+        QueryResultCache cache = queryResultCache;
+        TransactionContext context = currentTransaction();
+        if (cache == null || isBoundToOtherDataSource() || (context != null && !context.writtenTables.isEmpty())) {
+            return executeReadOnly(conn -> queryList(conn, sql, parameters, rowMapper));
+        }
+        QueryResultCache.CacheKey key = new QueryResultCache.CacheKey(sql,
+                Collections.unmodifiableList(new ArrayList<>(parameters)), mapperKey(rowMapper));
+        List<?> cachedRows = cache.get(key);
+        if (cachedRows != null) {
+            return (List<T>) cachedRows;
+        }
+        long generation = cache.getGeneration();
+        List<T> rows = Collections.unmodifiableList(
+                executeReadOnly(conn -> queryList(conn, sql, parameters, rowMapper)));
+        cache.put(key, rows, QueryResultCache.readTables(sql), generation);
+        return rows;
+    }
+
+    public static <T> List<T> queryList(String sql, List<?> parameters, RowMapper<T> rowMapper) {
+        return executeReadOnly(conn -> queryList(conn, sql, parameters, rowMapper));
+    }
+
+    public static ColumnarResult queryColumnar(String sql, List<?> parameters) {
+        return queryColumnar(sql, parameters, ColumnarResult.Settings.DEFAULT);
+    }
+
+    public static ColumnarResult queryColumnar(String sql, List<?> parameters, ColumnarResult.Settings settings) {
+        return executeInReadOnlyTransaction(conn -> {
+            try (PreparedStatement statement = conn.prepareStatement(sql)) {
+                for (int i = 0; i < parameters.size(); i++) {
+                    statement.setObject(i + 1, parameters.get(i));
                 }
+                statement.setFetchSize(DEFAULT_FETCH_SIZE);
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    return ColumnarResult.from(resultSet, settings);
+                }
+            }
+        });
+    }
+
+    private static <T> T executeInReadOnlyTransaction(ConnectionFunction<T> function) {
+        if (currentTransaction() != null) {
+            return executeStatementsInTransactionWithResult(function);
+        }
+        Runnable releaseReplica = () -> {};
+        Connection conn = null;
+        T result;
+        try {
+            ReplicaRouter router = isBoundToOtherDataSource() ? null : replicaRouter;
+            if (router != null) {
+                int replica = router.acquire();
+                releaseReplica = () -> router.release(replica);
+                conn = Deadline.getConnection(router.getDataSource(replica));
+            } else {
+                conn = Deadline.getConnection(currentDataSource());
             }
+            conn.setReadOnly(true);
+            conn.setAutoCommit(false);
+            result = function.apply(conn);
+        } catch (SQLException ex) {
+            closeCursorAfterFailure(conn, null, null, true, releaseReplica, ex);
+            throw new RuntimeException("Error during statement execution", ex);
+        } catch (RuntimeException ex) {
+            closeCursorAfterFailure(conn, null, null, true, releaseReplica, ex);
+            throw ex;
+        }
+        try {
+            closeCursor(conn, null, null, true, releaseReplica, false);
         } catch (SQLException e) {
             throw new RuntimeException("Error during database connection", e);
         }
         return result;
     }
 
-    private static boolean isTransactionActive() throws SQLException {
-        return connection.get() != null;
+    static <T> RowMapper<T> bindRowMapper(RowMapper<T> rowMapper, ResultSet resultSet) throws SQLException {
+        return rowMapper instanceof TypedRowMapper<T> typed ? typed.bind(resultSet) : rowMapper;
+    }
+
+    private static Object mapperKey(RowMapper<?> rowMapper) {
+        return rowMapper instanceof TypedRowMapper<?> typed ? typed.getType() : rowMapper;
+    }
+
+    private static <T> List<T> queryList(Connection conn, String sql, List<?> parameters,
+                                         RowMapper<T> rowMapper) throws SQLException {
+        try (PreparedStatement statement = conn.prepareStatement(sql)) {
+            for (int i = 0; i < parameters.size(); i++) {
+                statement.setObject(i + 1, parameters.get(i));
+            }
+            try (ResultSet resultSet = statement.executeQuery()) {
+                RowMapper<T> boundMapper = bindRowMapper(rowMapper, resultSet);
+                List<T> rows = new ArrayList<>();
+                while (resultSet.next()) {
+                    rows.add(boundMapper.map(resultSet));
+                }
+                return rows;
+            }
+        }
+    }
+
+    static void markRollbackOnly() {
+        TransactionContext context = transaction.get();
+        if (context != null) {
+            context.rollbackOnly = true;
+        }
+    }
+
+    static boolean isQueryResultCacheEnabled() {
+        return queryResultCache != null;
+    }
+
+    static void recordWrite(String table, Connection connection) {
+        QueryResultCache cache = queryResultCache;
+        if (cache == null) {
+            return;
+        }
+        TransactionContext context = transaction.get();
+        if (context != null && context.isConnection(connection)) {
+            context.writtenTables.add(table);
+        } else {
+            cache.invalidateTables(Set.of(table));
+        }
+    }
+
+    public static void setStatementCacheSize(int size) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("Statement cache size must be positive: " + size);
+        }
+        statementCacheSize = size;
+    }
+
+    public static PreparedStatement prepareCachedStatement(String sql) throws SQLException {
+        TransactionContext context = currentTransaction();
+        if (context == null) {
+            throw new IllegalStateException("Cached statements are only available inside a transaction");
+        }
+        if (context.statementCache == null) {
+            context.statementCache = new StatementCache(context.connection, statementCacheSize);
+        }
+        return context.statementCache.prepare(sql);
+    }
+
+    static DataSource getDataSource() {
+        return currentDataSource();
     }
 
-    private static void startTransaction() throws SQLException {
-        isTransactionSuccessful.set(true);
-        connection.set(dataSource.getConnection());
-        connection.get().setAutoCommit(false);
+    private static TransactionContext startTransaction(int isolationLevel) throws SQLException {
+        DataSource transactionDataSource = currentDataSource();
+        Connection conn = Deadline.getConnection(transactionDataSource);
+        int previousIsolationLevel = DEFAULT_ISOLATION;
+        try {
+            if (isolationLevel != DEFAULT_ISOLATION) {
+                previousIsolationLevel = conn.getTransactionIsolation();
+                conn.setTransactionIsolation(isolationLevel);
+            }
+            conn.setAutoCommit(false);
+        } catch (SQLException e) {
+            conn.close();
+            throw e;
+        }
+        TransactionContext context = new TransactionContext(transactionDataSource, conn, isolationLevel,
+                previousIsolationLevel);
+        context.hold = ConnectionHoldProfiler.getInstance().startHold();
+        transaction.set(context);
+        return context;
     }
 
-    private static void completeOuterTransaction() throws SQLException {
+    private static void completeOuterTransaction(TransactionContext context) throws SQLException {
+        boolean isCommitted = false;
         try {
-            if (isTransactionSuccessful.get()) {
-                connection.get().commit();
+            Deadline deadline = Deadline.current();
+            boolean deadlineExceeded = deadline != null && deadline.isExpired();
+            if (!context.rollbackOnly && !deadlineExceeded) {
+                context.connection.commit();
+                isCommitted = true;
+                invalidateWrittenTables(context);
             } else {
-                connection.get().rollback();
+                context.connection.rollback();
+                if (deadlineExceeded && !context.rollbackOnly) {
+                    throw new SQLTimeoutException("Deadline exceeded before commit");
+                }
             }
         } finally {
-            connection.get().setAutoCommit(true);
-            connection.get().close();
-            connection.remove();
+            DbMetrics.getInstance().recordTransaction(System.nanoTime() - context.startNanos, isCommitted);
+            transaction.remove();
+            try {
+                if (context.statementCache != null) {
+                    context.statementCache.close();
+                }
+            } finally {
+                try {
+                    context.connection.setAutoCommit(true);
+                    if (context.previousIsolationLevel != DEFAULT_ISOLATION) {
+                        context.connection.setTransactionIsolation(context.previousIsolationLevel);
+                    }
+                } finally {
+                    ConnectionHoldProfiler.getInstance().endHold(context.hold);
+                    context.connection.close();
+                }
+            }
+        }
+    }
+
+    private static void invalidateWrittenTables(TransactionContext context) {
+        QueryResultCache cache = queryResultCache;
+        if (cache != null) {
+            cache.invalidateTables(context.writtenTables);
         }
     }
 }
@@ -0,0 +1,168 @@
+package com.liaverg.utilities;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+public final class Deadline {
+    private static final Logger logger = LoggerFactory.getLogger(Deadline.class);
+    private static final ThreadLocal<Deadline> current = new ThreadLocal<>();
+    private static final ScheduledExecutorService watchdog = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "dbutils-deadline-watchdog");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final long deadlineNanos;
+    private Thread acquiringThread;
+    private boolean acquisitionInterrupted;
+    private Statement runningStatement;
+    private int restoredTimeoutSeconds = -1;
+    private boolean expired;
+
+    private Deadline(long deadlineNanos) {
+        this.deadlineNanos = deadlineNanos;
+    }
+
+    public static Deadline current() {
+        return current.get();
+    }
+
+    public static <T> T run(Duration budget, Supplier<T> call) {
+        if (budget.isNegative() || budget.isZero()) {
+            throw new IllegalArgumentException("Deadline budget must be positive: " + budget);
+        }
+        long deadlineNanos = System.nanoTime() + budget.toNanos();
+        Deadline outer = current.get();
+        if (outer != null && outer.deadlineNanos <= deadlineNanos) {
+            return call.get();
+        }
+        return new Deadline(deadlineNanos).enter(call);
+    }
+
+    static <T> Supplier<T> propagate(Supplier<T> call) {
+        Deadline deadline = current.get();
+        if (deadline == null) {
+            return call;
+        }
+        return () -> {
+            Deadline previous = current.get();
+            if (previous != null && previous.deadlineNanos <= deadline.deadlineNanos) {
+                return call.get();
+            }
+            return new Deadline(deadline.deadlineNanos).enter(call);
+        };
+    }
+
+    public Duration remaining() {
+        return Duration.ofNanos(Math.max(0, deadlineNanos - System.nanoTime()));
+    }
+
+    public synchronized boolean isExpired() {
+        return expired || System.nanoTime() - deadlineNanos >= 0;
+    }
+
+    private <T> T enter(Supplier<T> call) {
+        Deadline previous = current.get();
+        current.set(this);
+        ScheduledFuture<?> expiry = watchdog.schedule(this::expire, deadlineNanos - System.nanoTime(),
+                TimeUnit.NANOSECONDS);
+        try {
+            return call.get();
+        } finally {
+            expiry.cancel(false);
+            if (previous == null) {
+                current.remove();
+            } else {
+                current.set(previous);
+            }
+        }
+    }
+
+    private synchronized void expire() {
+        expired = true;
+        if (acquiringThread != null) {
+            acquisitionInterrupted = true;
+            acquiringThread.interrupt();
+        }
+        if (runningStatement != null) {
+            try {
+                runningStatement.cancel();
+            } catch (SQLException e) {
+                logger.warn("Unable to cancel statement after deadline expired", e);
+            }
+        }
+    }
+
+    static Connection getConnection(DataSource dataSource) throws SQLException {
+        Deadline deadline = current.get();
+        return deadline == null ? dataSource.getConnection() : deadline.acquire(dataSource);
+    }
+
+    private Connection acquire(DataSource dataSource) throws SQLException {
+        synchronized (this) {
+            if (isExpired()) {
+                throw new SQLTimeoutException("Deadline exceeded before connection acquisition");
+            }
+            acquiringThread = Thread.currentThread();
+        }
+        try {
+            return dataSource.getConnection();
+        } catch (SQLException e) {
+            if (isExpired()) {
+                SQLTimeoutException timeout = new SQLTimeoutException("Deadline exceeded during connection acquisition");
+                timeout.initCause(e);
+                throw timeout;
+            }
+            throw e;
+        } finally {
+            synchronized (this) {
+                acquiringThread = null;
+                if (acquisitionInterrupted) {
+                    acquisitionInterrupted = false;
+                    Thread.interrupted();
+                }
+            }
+        }
+    }
+
+    synchronized void beforeStatement(Statement statement) throws SQLException {
+        if (isExpired()) {
+            throw new SQLTimeoutException("Deadline exceeded before statement execution");
+        }
+        long remainingNanos = deadlineNanos - System.nanoTime();
+        int timeoutSeconds = (int) Math.max(1, TimeUnit.NANOSECONDS.toSeconds(remainingNanos + 999_999_999L));
+        int currentTimeoutSeconds = statement.getQueryTimeout();
+        if (currentTimeoutSeconds == 0 || currentTimeoutSeconds > timeoutSeconds) {
+            statement.setQueryTimeout(timeoutSeconds);
+            restoredTimeoutSeconds = currentTimeoutSeconds;
+        }
+        runningStatement = statement;
+    }
+
+    synchronized void afterStatement(Statement statement) {
+        if (runningStatement != statement) {
+            return;
+        }
+        runningStatement = null;
+        if (restoredTimeoutSeconds >= 0) {
+            try {
+                statement.setQueryTimeout(restoredTimeoutSeconds);
+            } catch (SQLException e) {
+                logger.warn("Unable to restore query timeout of {} seconds", restoredTimeoutSeconds, e);
+            }
+            restoredTimeoutSeconds = -1;
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.liaverg.utilities;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+
+import java.sql.SQLException;
+import java.util.List;
+
+public class DeadlineListener implements QueryExecutionListener {
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        Deadline deadline = Deadline.current();
+        if (deadline == null) {
+            return;
+        }
+        try {
+            deadline.beforeStatement(execInfo.getStatement());
+        } catch (SQLException e) {
+            DbUtils.markRollbackOnly();
+            throw new RuntimeException("Error during statement execution", e);
+        }
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        Deadline deadline = Deadline.current();
+        if (deadline != null) {
+            deadline.afterStatement(execInfo.getStatement());
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package com.liaverg.utilities;
+
+import com.liaverg.utilities.DbUtils.ConnectionFunction;
+import com.liaverg.utilities.DbUtils.Propagation;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+public class GroupCommitExecutor implements AutoCloseable {
+    public static final int DEFAULT_MAX_BATCH_SIZE = 64;
+    public static final Duration DEFAULT_MAX_DELAY = Duration.ofMillis(5);
+
+    private record Unit<T>(ConnectionFunction<T> function, CompletableFuture<T> future) {
+    }
+
+    private record Outcome(Object result, RuntimeException failure) {
+    }
+
+    private static final Unit<Void> SHUTDOWN = new Unit<>(conn -> null, new CompletableFuture<>());
+
+    private final int maxBatchSize;
+    private final long maxDelayNanos;
+    private final BlockingQueue<Unit<?>> queue = new LinkedBlockingQueue<>();
+    private final Thread flusher;
+    private final LongAdder commits = new LongAdder();
+    private final LongAdder units = new LongAdder();
+    private volatile boolean closed;
+
+    public GroupCommitExecutor(int maxBatchSize, Duration maxDelay) {
+        if (maxBatchSize <= 0) {
+            throw new IllegalArgumentException("Group commit batch size must be positive: " + maxBatchSize);
+        }
+        if (maxDelay.isNegative()) {
+            throw new IllegalArgumentException("Group commit delay must not be negative: " + maxDelay);
+        }
+        this.maxBatchSize = maxBatchSize;
+        this.maxDelayNanos = maxDelay.toNanos();
+        this.flusher = new Thread(this::run, "dbutils-group-commit");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    public <T> CompletableFuture<T> submit(ConnectionFunction<T> function) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        synchronized (queue) {
+            if (closed) {
+                throw new RejectedExecutionException("Group commit executor is closed");
+            }
+            queue.add(new Unit<>(function, future));
+        }
+        return future;
+    }
+
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    public Duration getMaxDelay() {
+        return Duration.ofNanos(maxDelayNanos);
+    }
+
+    public long getCommitCount() {
+        return commits.sum();
+    }
+
+    public long getUnitCount() {
+        return units.sum();
+    }
+
+    public int getQueuedUnitCount() {
+        return queue.size();
+    }
+
+    @Override
+    public void close() {
+        synchronized (queue) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            queue.add(SHUTDOWN);
+        }
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run() {
+        List<Unit<?>> batch = new ArrayList<>(maxBatchSize);
+        boolean running = true;
+        try {
+            while (running) {
+                try {
+                    running = collect(batch);
+                } catch (InterruptedException e) {
+                    running = false;
+                }
+                if (!batch.isEmpty()) {
+                    flush(batch);
+                    batch.clear();
+                }
+            }
+        } finally {
+            rejectPendingUnits();
+        }
+    }
+
+    private void rejectPendingUnits() {
+        List<Unit<?>> pending = new ArrayList<>();
+        synchronized (queue) {
+            closed = true;
+            queue.drainTo(pending);
+        }
+        RejectedExecutionException failure =
+                new RejectedExecutionException("Group commit executor stopped before the unit was flushed");
+        for (Unit<?> unit : pending) {
+            unit.future().completeExceptionally(failure);
+        }
+    }
+
+    private boolean collect(List<Unit<?>> batch) throws InterruptedException {
+        Unit<?> unit = queue.take();
+        if (unit == SHUTDOWN) {
+            return false;
+        }
+        batch.add(unit);
+        long deadline = System.nanoTime() + maxDelayNanos;
+        while (batch.size() < maxBatchSize) {
+            long remaining = deadline - System.nanoTime();
+            unit = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+            if (unit == null) {
+                return true;
+            }
+            if (unit == SHUTDOWN) {
+                return false;
+            }
+            batch.add(unit);
+        }
+        return true;
+    }
+
+    private void flush(List<Unit<?>> batch) {
+        List<Outcome> outcomes;
+        try {
+            outcomes = DbUtils.executeStatementsInTransactionWithResult(conn -> {
+                List<Outcome> attempt = new ArrayList<>(batch.size());
+                for (Unit<?> unit : batch) {
+                    try {
+                        attempt.add(new Outcome(
+                                DbUtils.executeStatementsInTransactionWithResult(unit.function(), Propagation.NESTED),
+                                null));
+                    } catch (RuntimeException e) {
+                        attempt.add(new Outcome(null, e));
+                    }
+                }
+                return attempt;
+            });
+        } catch (RuntimeException e) {
+            for (Unit<?> unit : batch) {
+                unit.future().completeExceptionally(e);
+            }
+            return;
+        }
+        commits.increment();
+        units.add(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            complete(batch.get(i), outcomes.get(i));
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> void complete(Unit<T> unit, Outcome outcome) {
+        if (outcome.failure() != null) {
+            unit.future().completeExceptionally(outcome.failure());
+        } else {
+            unit.future().complete((T) outcome.result());
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package com.liaverg.utilities;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.BinaryOperator;
+import java.util.function.Supplier;
+
+public class PartitionedQuery {
+
+    @FunctionalInterface
+    public interface ResultSetHandler<R> {
+        R handle(ResultSet resultSet) throws SQLException;
+    }
+
+    private PartitionedQuery() {
+    }
+
+    public static <R> R execute(String sql, long minKey, long maxKey, int partitions,
+                                ResultSetHandler<R> handler, BinaryOperator<R> combiner) {
+        return execute(sql, minKey, maxKey, partitions, partitions, false, handler, combiner);
+    }
+
+    public static <R> R execute(String sql, long minKey, long maxKey, int partitions, int parallelism,
+                                boolean consistentSnapshot, ResultSetHandler<R> handler, BinaryOperator<R> combiner) {
+        if (partitions <= 0 || parallelism <= 0) {
+            throw new IllegalArgumentException("Partitions and parallelism must be positive");
+        }
+        if (maxKey < minKey) {
+            throw new IllegalArgumentException("Key range is empty: [" + minKey + ", " + maxKey + "]");
+        }
+        DataSource dataSource = DbUtils.getDataSource();
+        List<long[]> ranges = splitRange(minKey, maxKey, partitions);
+        if (!consistentSnapshot) {
+            return executePartitions(dataSource, sql, ranges, parallelism, null, handler, combiner);
+        }
+        try (Connection coordinator = Deadline.getConnection(dataSource)) {
+            int snapshotParallelism = Math.min(parallelism, maximumPoolSize(dataSource) - 1);
+            if (snapshotParallelism <= 0) {
+                throw new IllegalStateException("Consistent snapshot mode needs a pool of at least two connections");
+            }
+            int originalIsolation = coordinator.getTransactionIsolation();
+            coordinator.setAutoCommit(false);
+            coordinator.setTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
+            try {
+                String snapshotId = exportSnapshot(coordinator);
+                R combined = executePartitions(dataSource, sql, ranges, snapshotParallelism, snapshotId, handler,
+                        combiner);
+                coordinator.commit();
+                return combined;
+            } catch (RuntimeException | SQLException e) {
+                rollback(coordinator, e);
+                throw e;
+            } finally {
+                coordinator.setTransactionIsolation(originalIsolation);
+                coordinator.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Error during database connection", e);
+        }
+    }
+
+    static List<long[]> splitRange(long minKey, long maxKey, int partitions) {
+        if (maxKey == Long.MAX_VALUE) {
+            throw new IllegalArgumentException("Maximum key must be below Long.MAX_VALUE to form an exclusive bound");
+        }
+        long step = Long.divideUnsigned(maxKey - minKey, partitions) + 1;
+        List<long[]> ranges = new ArrayList<>(partitions);
+        long lower = minKey;
+        while (true) {
+            if (Long.compareUnsigned(maxKey - lower, step) < 0) {
+                ranges.add(new long[]{lower, maxKey + 1});
+                return ranges;
+            }
+            ranges.add(new long[]{lower, lower + step});
+            lower += step;
+        }
+    }
+
+    private static int maximumPoolSize(DataSource dataSource) throws SQLException {
+        return dataSource.isWrapperFor(HikariDataSource.class)
+                ? dataSource.unwrap(HikariDataSource.class).getMaximumPoolSize()
+                : Integer.MAX_VALUE;
+    }
+
+    private static void rollback(Connection conn, Exception failure) {
+        try {
+            conn.rollback();
+        } catch (SQLException e) {
+            failure.addSuppressed(e);
+        }
+    }
+
+    private static String exportSnapshot(Connection coordinator) throws SQLException {
+        try (Statement statement = coordinator.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT pg_export_snapshot()")) {
+            resultSet.next();
+            return resultSet.getString(1);
+        }
+    }
+
+    private static <R> R executePartitions(DataSource dataSource, String sql, List<long[]> ranges, int parallelism,
+                                           String snapshotId, ResultSetHandler<R> handler,
+                                           BinaryOperator<R> combiner) {
+        ForkJoinPool pool = new ForkJoinPool(Math.min(parallelism, ranges.size()));
+        try {
+            List<Future<R>> results = new ArrayList<>(ranges.size());
+            for (long[] range : ranges) {
+                Supplier<R> partition = Deadline.propagate(() -> executePartition(dataSource, sql, range[0],
+                        range[1], snapshotId, handler));
+                results.add(pool.submit(partition::get));
+            }
+            R combined = null;
+            for (Future<R> result : results) {
+                R partial = result.get();
+                combined = combined == null ? partial : combiner.apply(combined, partial);
+            }
+            return combined;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for partitions", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new RuntimeException("Error during statement execution", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static <R> R executePartition(DataSource dataSource, String sql, long lowerInclusive,
+                                          long upperExclusive, String snapshotId, ResultSetHandler<R> handler) {
+        try (Connection conn = Deadline.getConnection(dataSource)) {
+            int originalIsolation = conn.getTransactionIsolation();
+            if (snapshotId != null) {
+                conn.setAutoCommit(false);
+                conn.setTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
+            }
+            try {
+                if (snapshotId != null) {
+                    try (PreparedStatement snapshotStatement =
+                                 conn.prepareStatement("SET TRANSACTION SNAPSHOT '" + snapshotId + "'")) {
+                        snapshotStatement.execute();
+                    }
+                }
+                R partial;
+                try (PreparedStatement statement = conn.prepareStatement(sql)) {
+                    statement.setLong(1, lowerInclusive);
+                    statement.setLong(2, upperExclusive);
+                    try (ResultSet resultSet = statement.executeQuery()) {
+                        partial = handler.handle(resultSet);
+                    }
+                }
+                if (snapshotId != null) {
+                    conn.commit();
+                }
+                return partial;
+            } catch (SQLException ex) {
+                if (snapshotId != null) {
+                    rollback(conn, ex);
+                }
+                throw new RuntimeException("Error during statement execution", ex);
+            } catch (RuntimeException ex) {
+                if (snapshotId != null) {
+                    rollback(conn, ex);
+                }
+                throw ex;
+            } finally {
+                if (snapshotId != null) {
+                    conn.setTransactionIsolation(originalIsolation);
+                    conn.setAutoCommit(true);
+                }
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Error during database connection", e);
+        }
+    }
+}
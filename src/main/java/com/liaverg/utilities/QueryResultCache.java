@@ -0,0 +1,213 @@
+package com.liaverg.utilities;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+public class QueryResultCache {
+    private static final Pattern READ_TABLE = Pattern.compile(
+            "\\b(?:FROM|JOIN)\\s+(?:ONLY\\s+)?([\\w.\"]+)", Pattern.CASE_INSENSITIVE);
+    private static final Pattern WRITE_TABLE = Pattern.compile(
+            "^\\s*(?:INSERT\\s+INTO|UPDATE|DELETE\\s+FROM|TRUNCATE(?:\\s+TABLE)?|MERGE\\s+INTO|COPY)\\s+(?:ONLY\\s+)?([\\w.\"]+)",
+            Pattern.CASE_INSENSITIVE);
+    private static final long ENTRY_OVERHEAD_BYTES = 96;
+
+    record CacheKey(String sql, List<Object> parameters, Object rowMapperKey) {
+    }
+
+    private record CacheEntry(List<?> rows, Set<String> tables, long expiresAtNanos, long estimatedBytes) {
+    }
+
+    private final int maxEntries;
+    private final long ttlNanos;
+    private final LinkedHashMap<CacheKey, CacheEntry> entries;
+    private final Map<String, Set<CacheKey>> keysByTable = new HashMap<>();
+    private long generation;
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long expirations;
+    private long invalidations;
+    private long estimatedBytes;
+
+    public QueryResultCache(int maxEntries, Duration ttl) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("Max entries must be positive: " + maxEntries);
+        }
+        this.maxEntries = maxEntries;
+        this.ttlNanos = ttl.toNanos();
+        this.entries = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    synchronized List<?> get(CacheKey key) {
+        CacheEntry entry = entries.get(key);
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        if (System.nanoTime() - entry.expiresAtNanos() > 0) {
+            remove(key);
+            expirations++;
+            misses++;
+            return null;
+        }
+        hits++;
+        return entry.rows();
+    }
+
+    synchronized long getGeneration() {
+        return generation;
+    }
+
+    synchronized void put(CacheKey key, List<?> rows, Set<String> tables, long expectedGeneration) {
+        if (generation != expectedGeneration) {
+            return;
+        }
+        remove(key);
+        long entryBytes = ENTRY_OVERHEAD_BYTES + estimateSize(key) + estimateSize(rows);
+        entries.put(key, new CacheEntry(rows, tables, System.nanoTime() + ttlNanos, entryBytes));
+        estimatedBytes += entryBytes;
+        for (String table : tables) {
+            keysByTable.computeIfAbsent(table, ignored -> new HashSet<>()).add(key);
+        }
+        while (entries.size() > maxEntries) {
+            remove(entries.keySet().iterator().next());
+            evictions++;
+        }
+    }
+
+    public synchronized void invalidateTables(Collection<String> tables) {
+        if (tables.isEmpty()) {
+            return;
+        }
+        generation++;
+        for (String table : tables) {
+            Set<CacheKey> keys = keysByTable.remove(table);
+            if (keys != null) {
+                for (CacheKey key : keys) {
+                    if (remove(key)) {
+                        invalidations++;
+                    }
+                }
+            }
+        }
+    }
+
+    public synchronized void clear() {
+        generation++;
+        entries.clear();
+        keysByTable.clear();
+        estimatedBytes = 0;
+    }
+
+    private boolean remove(CacheKey key) {
+        CacheEntry entry = entries.remove(key);
+        if (entry == null) {
+            return false;
+        }
+        estimatedBytes -= entry.estimatedBytes();
+        for (String table : entry.tables()) {
+            Set<CacheKey> keys = keysByTable.get(table);
+            if (keys != null) {
+                keys.remove(key);
+                if (keys.isEmpty()) {
+                    keysByTable.remove(table);
+                }
+            }
+        }
+        return true;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long getHitCount() {
+        return hits;
+    }
+
+    public synchronized long getMissCount() {
+        return misses;
+    }
+
+    public synchronized double getHitRatio() {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0.0 : (double) hits / lookups;
+    }
+
+    public synchronized long getEvictionCount() {
+        return evictions;
+    }
+
+    public synchronized long getExpirationCount() {
+        return expirations;
+    }
+
+    public synchronized long getInvalidationCount() {
+        return invalidations;
+    }
+
+    public synchronized long getEstimatedBytes() {
+        return estimatedBytes;
+    }
+
+    static Set<String> readTables(String sql) {
+        Set<String> tables = new HashSet<>();
+        Matcher matcher = READ_TABLE.matcher(sql);
+        while (matcher.find()) {
+            tables.add(normalizeTable(matcher.group(1)));
+        }
+        return tables;
+    }
+
+    static String writeTable(String sql) {
+        Matcher matcher = WRITE_TABLE.matcher(sql);
+        return matcher.find() ? normalizeTable(matcher.group(1)) : null;
+    }
+
+    private static String normalizeTable(String table) {
+        String unquoted = table.replace("\"", "");
+        return unquoted.substring(unquoted.lastIndexOf('.') + 1).toLowerCase(Locale.ROOT);
+    }
+
+    private static long estimateSize(Object value) {
+        if (value == null) {
+            return 0;
+        }
+        if (value instanceof CacheKey key) {
+            return 40 + key.sql().length() + estimateSize(key.parameters());
+        }
+        if (value instanceof String text) {
+            return 40 + text.length();
+        }
+        if (value instanceof byte[] bytes) {
+            return 16 + bytes.length;
+        }
+        if (value instanceof Number || value instanceof Boolean || value instanceof Character) {
+            return 24;
+        }
+        if (value instanceof Object[] array) {
+            long size = 16 + 8L * array.length;
+            for (Object element : array) {
+                size += estimateSize(element);
+            }
+            return size;
+        }
+        if (value instanceof Collection<?> collection) {
+            long size = 40 + 8L * collection.size();
+            for (Object element : collection) {
+                size += estimateSize(element);
+            }
+            return size;
+        }
+        return 64;
+    }
+}
@@ -0,0 +1,34 @@
+package com.liaverg.utilities;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+@FunctionalInterface
+public interface ReplicaBalancer {
+    int select(AtomicIntegerArray inFlight);
+
+    static ReplicaBalancer roundRobin() {
+        AtomicInteger next = new AtomicInteger();
+        return inFlight -> Math.floorMod(next.getAndIncrement(), inFlight.length());
+    }
+
+    static ReplicaBalancer leastInFlight() {
+        return inFlight -> {
+            int selected = 0;
+            for (int i = 1; i < inFlight.length(); i++) {
+                if (inFlight.get(i) < inFlight.get(selected)) {
+                    selected = i;
+                }
+            }
+            return selected;
+        };
+    }
+
+    static ReplicaBalancer fromName(String name) {
+        return switch (name) {
+            case "round-robin" -> roundRobin();
+            case "least-in-flight" -> leastInFlight();
+            default -> throw new IllegalArgumentException("Unknown replica balancer: " + name);
+        };
+    }
+}
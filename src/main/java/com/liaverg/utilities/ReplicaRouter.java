@@ -0,0 +1,42 @@
+package com.liaverg.utilities;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+public class ReplicaRouter {
+    private final List<DataSource> replicas;
+    private final ReplicaBalancer balancer;
+    private final AtomicIntegerArray inFlight;
+
+    public ReplicaRouter(List<DataSource> replicas, ReplicaBalancer balancer) {
+        if (replicas.isEmpty()) {
+            throw new IllegalArgumentException("At least one replica is required");
+        }
+        this.replicas = List.copyOf(replicas);
+        this.balancer = balancer;
+        this.inFlight = new AtomicIntegerArray(replicas.size());
+    }
+
+    public int acquire() {
+        int replica = balancer.select(inFlight);
+        inFlight.incrementAndGet(replica);
+        return replica;
+    }
+
+    public void release(int replica) {
+        inFlight.decrementAndGet(replica);
+    }
+
+    public DataSource getDataSource(int replica) {
+        return replicas.get(replica);
+    }
+
+    public int getReplicaCount() {
+        return replicas.size();
+    }
+
+    public int getInFlightCount(int replica) {
+        return inFlight.get(replica);
+    }
+}
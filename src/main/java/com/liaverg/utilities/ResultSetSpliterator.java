@@ -0,0 +1,37 @@
+package com.liaverg.utilities;
+
+import com.liaverg.utilities.DbUtils.RowMapper;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+
+class ResultSetSpliterator<T> extends Spliterators.AbstractSpliterator<T> {
+    private final ResultSet resultSet;
+    private final RowMapper<T> rowMapper;
+    private RowMapper<T> boundMapper;
+
+    ResultSetSpliterator(ResultSet resultSet, RowMapper<T> rowMapper) {
+        super(Long.MAX_VALUE, Spliterator.ORDERED);
+        this.resultSet = resultSet;
+        this.rowMapper = rowMapper;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super T> action) {
+        try {
+            if (!resultSet.next()) {
+                return false;
+            }
+            if (boundMapper == null) {
+                boundMapper = DbUtils.bindRowMapper(rowMapper, resultSet);
+            }
+            action.accept(boundMapper.map(resultSet));
+            return true;
+        } catch (SQLException e) {
+            throw new RuntimeException("Error during statement execution", e);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.liaverg.utilities;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+public class RetryPolicy {
+    public static final RetryPolicy DEFAULT = new RetryPolicy(5, Duration.ofMillis(10), Duration.ofSeconds(1), 0.1, 100);
+    public static final RetryPolicy NONE = new RetryPolicy(1, Duration.ZERO, Duration.ZERO, 0.0, 0);
+
+    private static final Set<String> RETRYABLE_SQL_STATES = Set.of("40001", "40P01");
+
+    private final int maxAttempts;
+    private final long initialBackoffNanos;
+    private final long maxBackoffNanos;
+    private final double budgetRatio;
+    private final int budgetCapacity;
+    private final LongAdder transactions = new LongAdder();
+    private double spentTokens;
+
+    public RetryPolicy(int maxAttempts, Duration initialBackoff, Duration maxBackoff, double budgetRatio,
+                       int budgetCapacity) {
+        if (maxAttempts <= 0) {
+            throw new IllegalArgumentException("Max attempts must be positive: " + maxAttempts);
+        }
+        if (budgetRatio < 0.0 || budgetCapacity < 0) {
+            throw new IllegalArgumentException("Retry budget must not be negative");
+        }
+        this.maxAttempts = maxAttempts;
+        this.initialBackoffNanos = initialBackoff.toNanos();
+        this.maxBackoffNanos = maxBackoff.toNanos();
+        this.budgetRatio = budgetRatio;
+        this.budgetCapacity = budgetCapacity;
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    public static boolean isRetryable(Throwable failure) {
+        for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLException sqlException) {
+                for (SQLException chained = sqlException; chained != null; chained = chained.getNextException()) {
+                    if (chained.getSQLState() != null && RETRYABLE_SQL_STATES.contains(chained.getSQLState())) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    void recordTransaction() {
+        if (maxAttempts > 1) {
+            transactions.increment();
+        }
+    }
+
+    synchronized boolean tryAcquireRetry() {
+        double earnedTokens = budgetCapacity + budgetRatio * transactions.sum();
+        spentTokens = Math.max(spentTokens, earnedTokens - budgetCapacity);
+        if (earnedTokens - spentTokens < 1.0) {
+            return false;
+        }
+        spentTokens += 1.0;
+        return true;
+    }
+
+    long backoffNanos(int attempt) {
+        double exponential = initialBackoffNanos * Math.pow(2, attempt - 1);
+        long ceiling = (long) Math.min(maxBackoffNanos, exponential);
+        return ceiling <= 0 ? 0 : ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+}
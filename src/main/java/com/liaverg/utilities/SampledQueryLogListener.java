@@ -0,0 +1,131 @@
+package com.liaverg.utilities;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.proxy.ParameterSetOperation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+public class SampledQueryLogListener implements QueryExecutionListener, AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(SampledQueryLogListener.class);
+    private static final int QUEUE_CAPACITY = 8192;
+
+    private record QueryLogEvent(String dataSourceName, String connectionId, long elapsedMillis, boolean success,
+                                 boolean slow, List<String> queries, List<List<ParameterSetOperation>> parameters) {
+    }
+
+    private final long slowQueryThresholdMillis;
+    private final double sampleRate;
+    private final BlockingQueue<QueryLogEvent> events = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final LongAdder droppedEvents = new LongAdder();
+    private final Thread writer;
+    private volatile boolean closed;
+
+    public SampledQueryLogListener(long slowQueryThresholdMillis, double sampleRate) {
+        this.slowQueryThresholdMillis = slowQueryThresholdMillis;
+        this.sampleRate = sampleRate;
+        writer = new Thread(this::writeEvents, "dbutils-query-log");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        boolean slow = execInfo.getElapsedTime() >= slowQueryThresholdMillis;
+        if (closed || !slow && (sampleRate == 0.0 || ThreadLocalRandom.current().nextDouble() >= sampleRate)) {
+            return;
+        }
+        List<String> queries = new ArrayList<>(queryInfoList.size());
+        List<List<ParameterSetOperation>> parameters = new ArrayList<>();
+        for (QueryInfo queryInfo : queryInfoList) {
+            queries.add(queryInfo.getQuery());
+            for (List<ParameterSetOperation> operations : queryInfo.getParametersList()) {
+                parameters.add(new ArrayList<>(operations));
+            }
+        }
+        QueryLogEvent event = new QueryLogEvent(execInfo.getDataSourceName(), execInfo.getConnectionId(),
+                execInfo.getElapsedTime(), execInfo.isSuccess(), slow, queries, parameters);
+        if (!events.offer(event)) {
+            droppedEvents.increment();
+        }
+    }
+
+    public long getDroppedEventCount() {
+        return droppedEvents.sum();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        writer.interrupt();
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void writeEvents() {
+        while (!closed) {
+            try {
+                writeSafely(events.take());
+            } catch (InterruptedException e) {
+                break;
+            }
+        }
+        for (QueryLogEvent event = events.poll(); event != null; event = events.poll()) {
+            writeSafely(event);
+        }
+    }
+
+    private void writeSafely(QueryLogEvent event) {
+        try {
+            write(event);
+        } catch (RuntimeException e) {
+            logger.warn("Unable to write query log event", e);
+        }
+    }
+
+    private void write(QueryLogEvent event) {
+        StringBuilder message = new StringBuilder()
+                .append("Name:").append(event.dataSourceName())
+                .append(", Connection:").append(event.connectionId())
+                .append(", Time:").append(event.elapsedMillis())
+                .append(", Success:").append(event.success() ? "True" : "False")
+                .append(", Query:").append(event.queries())
+                .append(", Params:[");
+        for (int i = 0; i < event.parameters().size(); i++) {
+            if (i > 0) {
+                message.append(", ");
+            }
+            message.append('(');
+            List<ParameterSetOperation> operations = event.parameters().get(i);
+            for (int j = 0; j < operations.size(); j++) {
+                if (j > 0) {
+                    message.append(',');
+                }
+                Object[] args = operations.get(j).getArgs();
+                message.append(args.length > 1 ? args[1] : null);
+            }
+            message.append(')');
+        }
+        message.append(']');
+        if (event.slow()) {
+            logger.warn("Slow query: {}", message);
+        } else {
+            logger.info("Sampled query: {}", message);
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.liaverg.utilities;
+
+import com.liaverg.utilities.DbUtils.ConnectionFunction;
+import com.liaverg.utilities.DbUtils.RowMapper;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.BinaryOperator;
+
+public class ShardRouter {
+    private final List<DbUtils> shards;
+
+    public ShardRouter(List<DbUtils> shards) {
+        if (shards.isEmpty()) {
+            throw new IllegalArgumentException("At least one shard is required");
+        }
+        this.shards = List.copyOf(shards);
+    }
+
+    public int getShardCount() {
+        return shards.size();
+    }
+
+    public List<DbUtils> getShards() {
+        return shards;
+    }
+
+    public DbUtils shardFor(Object key) {
+        return shards.get(shardIndex(key, shards.size()));
+    }
+
+    static int shardIndex(Object key, int shardCount) {
+        int hash = key.hashCode() * 0x9E3779B9;
+        return Math.floorMod(hash ^ (hash >>> 16), shardCount);
+    }
+
+    public <T> T inTransaction(Object key, ConnectionFunction<T> function) {
+        return shardFor(key).inTransaction(function);
+    }
+
+    public <T> T withConnection(Object key, ConnectionFunction<T> function) {
+        return shardFor(key).withConnection(function);
+    }
+
+    public <T> List<T> scatter(ConnectionFunction<T> function) {
+        if (DbUtils.getTransactionDepth() > 0) {
+            throw new IllegalStateException("Scatter-gather cannot run inside a transaction");
+        }
+        List<CompletableFuture<T>> futures = new ArrayList<>(shards.size());
+        for (DbUtils shard : shards) {
+            futures.add(shard.withConnectionAsync(function));
+        }
+        List<T> results = new ArrayList<>(shards.size());
+        try {
+            for (CompletableFuture<T> future : futures) {
+                results.add(future.join());
+            }
+        } catch (CompletionException e) {
+            futures.forEach(future -> future.cancel(false));
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+        return results;
+    }
+
+    public <T> T scatterGather(ConnectionFunction<T> function, BinaryOperator<T> combiner) {
+        return scatter(function).stream().reduce(combiner).orElseThrow();
+    }
+
+    public <T> List<T> queryAll(String sql, List<?> parameters, RowMapper<T> rowMapper,
+                                Comparator<? super T> order) {
+        List<List<T>> shardRows = scatter(conn -> {
+            List<T> rows = new ArrayList<>();
+            try (PreparedStatement statement = conn.prepareStatement(sql)) {
+                for (int i = 0; i < parameters.size(); i++) {
+                    statement.setObject(i + 1, parameters.get(i));
+                }
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    RowMapper<T> boundMapper = DbUtils.bindRowMapper(rowMapper, resultSet);
+                    while (resultSet.next()) {
+                        rows.add(boundMapper.map(resultSet));
+                    }
+                }
+            }
+            return rows;
+        });
+        return order == null ? concat(shardRows) : mergeSorted(shardRows, order);
+    }
+
+    private static <T> List<T> concat(List<List<T>> shardRows) {
+        List<T> merged = new ArrayList<>();
+        shardRows.forEach(merged::addAll);
+        return merged;
+    }
+
+    private static <T> List<T> mergeSorted(List<List<T>> shardRows, Comparator<? super T> order) {
+        int[] positions = new int[shardRows.size()];
+        List<T> merged = new ArrayList<>(shardRows.stream().mapToInt(List::size).sum());
+        while (true) {
+            int next = -1;
+            for (int shard = 0; shard < shardRows.size(); shard++) {
+                if (positions[shard] < shardRows.get(shard).size() && (next < 0
+                        || order.compare(shardRows.get(shard).get(positions[shard]),
+                        shardRows.get(next).get(positions[next])) < 0)) {
+                    next = shard;
+                }
+            }
+            if (next < 0) {
+                return merged;
+            }
+            merged.add(shardRows.get(next).get(positions[next]++));
+        }
+    }
+}
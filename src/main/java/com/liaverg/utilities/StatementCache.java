@@ -0,0 +1,103 @@
+package com.liaverg.utilities;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+public class StatementCache implements AutoCloseable {
+    public static final int DEFAULT_SIZE = 256;
+
+    private static final LongAdder hits = new LongAdder();
+    private static final LongAdder misses = new LongAdder();
+    private static final LongAdder evictions = new LongAdder();
+
+    private final Connection connection;
+    private final LinkedHashMap<String, PreparedStatement> statements;
+    private SQLException evictionFailure;
+
+    public StatementCache(Connection connection, int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("Statement cache size must be positive: " + maxSize);
+        }
+        this.connection = connection;
+        this.statements = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest) {
+                if (size() <= maxSize) {
+                    return false;
+                }
+                evictions.increment();
+                closeQuietly(eldest.getValue());
+                return true;
+            }
+        };
+    }
+
+    public PreparedStatement prepare(String sql) throws SQLException {
+        PreparedStatement statement = statements.get(sql);
+        if (statement != null && !statement.isClosed()) {
+            hits.increment();
+            statement.clearParameters();
+            return statement;
+        }
+        misses.increment();
+        statement = connection.prepareStatement(sql);
+        statements.put(sql, statement);
+        throwEvictionFailure();
+        return statement;
+    }
+
+    public int size() {
+        return statements.size();
+    }
+
+    @Override
+    public void close() throws SQLException {
+        for (PreparedStatement statement : statements.values()) {
+            closeQuietly(statement);
+        }
+        statements.clear();
+        throwEvictionFailure();
+    }
+
+    private void closeQuietly(PreparedStatement statement) {
+        try {
+            statement.close();
+        } catch (SQLException e) {
+            if (evictionFailure == null) {
+                evictionFailure = e;
+            } else {
+                evictionFailure.addSuppressed(e);
+            }
+        }
+    }
+
+    private void throwEvictionFailure() throws SQLException {
+        if (evictionFailure != null) {
+            SQLException failure = evictionFailure;
+            evictionFailure = null;
+            throw failure;
+        }
+    }
+
+    public static long getHitCount() {
+        return hits.sum();
+    }
+
+    public static long getMissCount() {
+        return misses.sum();
+    }
+
+    public static long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    public static void resetStatistics() {
+        hits.reset();
+        misses.reset();
+        evictions.reset();
+    }
+}
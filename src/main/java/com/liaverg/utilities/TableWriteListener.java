@@ -0,0 +1,35 @@
+package com.liaverg.utilities;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+
+public class TableWriteListener implements QueryExecutionListener {
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        if (!execInfo.isSuccess() || !DbUtils.isQueryResultCacheEnabled()) {
+            return;
+        }
+        Connection connection;
+        try {
+            connection = execInfo.getStatement().getConnection();
+        } catch (SQLException e) {
+            connection = null;
+        }
+        for (QueryInfo queryInfo : queryInfoList) {
+            String table = QueryResultCache.writeTable(queryInfo.getQuery());
+            if (table != null) {
+                DbUtils.recordWrite(table, connection);
+            }
+        }
+    }
+}
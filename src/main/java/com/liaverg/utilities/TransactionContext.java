@@ -0,0 +1,34 @@
+package com.liaverg.utilities;
+
+import com.liaverg.metrics.ConnectionHoldProfiler;
+import net.ttddyy.dsproxy.proxy.ProxyJdbcObject;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.util.HashSet;
+import java.util.Set;
+
+class TransactionContext {
+    final DataSource dataSource;
+    final Connection connection;
+    final int isolationLevel;
+    final int previousIsolationLevel;
+    final long startNanos = System.nanoTime();
+    final Set<String> writtenTables = new HashSet<>();
+    int depth = 1;
+    boolean rollbackOnly;
+    StatementCache statementCache;
+    ConnectionHoldProfiler.Hold hold;
+
+    TransactionContext(DataSource dataSource, Connection connection, int isolationLevel, int previousIsolationLevel) {
+        this.dataSource = dataSource;
+        this.connection = connection;
+        this.isolationLevel = isolationLevel;
+        this.previousIsolationLevel = previousIsolationLevel;
+    }
+
+    boolean isConnection(Connection other) {
+        return other != null && (other == connection
+                || connection instanceof ProxyJdbcObject proxy && other == proxy.getTarget());
+    }
+}
@@ -0,0 +1,238 @@
+package com.liaverg.utilities;
+
+import com.liaverg.utilities.DbUtils.RowMapper;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.RecordComponent;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+public class TypedRowMapper<T> implements RowMapper<T> {
+    private static final int MAX_CACHED_SHAPES = 64;
+    private static final ClassValue<TypeModel> typeModels = new ClassValue<>() {
+        @Override
+        protected TypeModel computeValue(Class<?> type) {
+            return TypeModel.of(type);
+        }
+    };
+
+    @FunctionalInterface
+    private interface ColumnReader {
+        Object read(ResultSet resultSet, int column) throws SQLException;
+    }
+
+    private record Property(String name, Class<?> type, MethodHandle setter) {
+    }
+
+    private record Binding(int[] columns, ColumnReader[] readers) {
+    }
+
+    private record LastBinding(WeakReference<ResultSet> resultSet, Binding binding) {
+    }
+
+    private static final class TypeModel {
+        private final Class<?> type;
+        private final List<Property> properties;
+        private final MethodHandle recordConstructor;
+        private final Supplier<Object> beanConstructor;
+        private final Map<List<String>, int[]> columnsByShape = new ConcurrentHashMap<>();
+
+        private TypeModel(Class<?> type, List<Property> properties, MethodHandle recordConstructor,
+                          Supplier<Object> beanConstructor) {
+            this.type = type;
+            this.properties = properties;
+            this.recordConstructor = recordConstructor;
+            this.beanConstructor = beanConstructor;
+        }
+
+        static TypeModel of(Class<?> type) {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            try {
+                if (type.isRecord()) {
+                    RecordComponent[] components = type.getRecordComponents();
+                    Class<?>[] componentTypes = new Class<?>[components.length];
+                    List<Property> properties = new ArrayList<>(components.length);
+                    for (int i = 0; i < components.length; i++) {
+                        componentTypes[i] = components[i].getType();
+                        properties.add(new Property(components[i].getName(), componentTypes[i], null));
+                    }
+                    MethodHandle constructor = MethodHandles.privateLookupIn(type, lookup)
+                            .findConstructor(type, MethodType.methodType(void.class, componentTypes));
+                    MethodHandle spreader = constructor
+                            .asType(MethodType.genericMethodType(components.length))
+                            .asSpreader(Object[].class, components.length);
+                    return new TypeModel(type, properties, spreader, null);
+                }
+                return new TypeModel(type, beanProperties(type, lookup), null, beanConstructor(type, lookup));
+            } catch (Throwable e) {
+                throw new IllegalArgumentException("Cannot map rows to " + type.getName(), e);
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private static Supplier<Object> beanConstructor(Class<?> type, MethodHandles.Lookup lookup) throws Throwable {
+            MethodHandles.Lookup typeLookup = MethodHandles.privateLookupIn(type, lookup);
+            MethodHandle constructor = typeLookup.findConstructor(type, MethodType.methodType(void.class));
+            CallSite callSite = LambdaMetafactory.metafactory(typeLookup, "get",
+                    MethodType.methodType(Supplier.class), MethodType.methodType(Object.class),
+                    constructor, MethodType.methodType(type));
+            return (Supplier<Object>) callSite.getTarget().invokeExact();
+        }
+
+        private static List<Property> beanProperties(Class<?> type, MethodHandles.Lookup lookup)
+                throws IllegalAccessException {
+            MethodHandles.Lookup typeLookup = MethodHandles.privateLookupIn(type, lookup);
+            List<Property> properties = new ArrayList<>();
+            for (Method method : type.getMethods()) {
+                if (method.getName().length() > 3 && method.getName().startsWith("set")
+                        && method.getParameterCount() == 1 && !Modifier.isStatic(method.getModifiers())) {
+                    MethodHandle setter = typeLookup.unreflect(method)
+                            .asType(MethodType.methodType(void.class, Object.class, Object.class));
+                    properties.add(new Property(method.getName().substring(3), method.getParameterTypes()[0], setter));
+                }
+            }
+            return properties;
+        }
+
+        int[] resolveColumns(List<String> labels) throws SQLException {
+            int[] columns = columnsByShape.get(labels);
+            if (columns == null) {
+                columns = matchColumns(labels);
+                if (columnsByShape.size() < MAX_CACHED_SHAPES) {
+                    columnsByShape.putIfAbsent(labels, columns);
+                }
+            }
+            return columns;
+        }
+
+        private int[] matchColumns(List<String> labels) throws SQLException {
+            Map<String, Integer> columnByName = new HashMap<>();
+            for (int i = 0; i < labels.size(); i++) {
+                columnByName.putIfAbsent(normalize(labels.get(i)), i + 1);
+            }
+            int[] columns = new int[properties.size()];
+            for (int i = 0; i < columns.length; i++) {
+                Integer column = columnByName.get(normalize(properties.get(i).name()));
+                if (column == null && recordConstructor != null) {
+                    throw new SQLException("No column for record component " + type.getSimpleName() + "."
+                            + properties.get(i).name() + " in " + labels);
+                }
+                columns[i] = column == null ? 0 : column;
+            }
+            return columns;
+        }
+
+        private static String normalize(String name) {
+            return name.replace("_", "").toLowerCase(Locale.ROOT);
+        }
+    }
+
+    private final TypeModel model;
+    private volatile LastBinding lastBinding;
+
+    private TypedRowMapper(TypeModel model) {
+        this.model = model;
+    }
+
+    public static <T> TypedRowMapper<T> of(Class<T> type) {
+        return new TypedRowMapper<>(typeModels.get(type));
+    }
+
+    @SuppressWarnings("unchecked")
+    public Class<T> getType() {
+        return (Class<T>) model.type;
+    }
+
+    public RowMapper<T> bind(ResultSet resultSet) throws SQLException {
+        Binding binding = resolveBinding(resultSet);
+        return boundResultSet -> map(boundResultSet, binding);
+    }
+
+    @Override
+    public T map(ResultSet resultSet) throws SQLException {
+        LastBinding last = lastBinding;
+        if (last == null || last.resultSet().get() != resultSet) {
+            last = new LastBinding(new WeakReference<>(resultSet), resolveBinding(resultSet));
+            lastBinding = last;
+        }
+        return map(resultSet, last.binding());
+    }
+
+    @SuppressWarnings("unchecked")
+    private T map(ResultSet resultSet, Binding binding) throws SQLException {
+        int[] columns = binding.columns();
+        ColumnReader[] readers = binding.readers();
+        try {
+            if (model.recordConstructor != null) {
+                Object[] arguments = new Object[columns.length];
+                for (int i = 0; i < columns.length; i++) {
+                    arguments[i] = readers[i].read(resultSet, columns[i]);
+                }
+                return (T) model.recordConstructor.invokeExact(arguments);
+            }
+            Object bean = model.beanConstructor.get();
+            for (int i = 0; i < columns.length; i++) {
+                if (columns[i] > 0) {
+                    model.properties.get(i).setter().invokeExact(bean, readers[i].read(resultSet, columns[i]));
+                }
+            }
+            return (T) bean;
+        } catch (SQLException | RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new SQLException("Cannot map row to " + model.type.getName(), e);
+        }
+    }
+
+    private Binding resolveBinding(ResultSet resultSet) throws SQLException {
+        ResultSetMetaData metaData = resultSet.getMetaData();
+        List<String> labels = new ArrayList<>(metaData.getColumnCount());
+        for (int i = 1; i <= metaData.getColumnCount(); i++) {
+            labels.add(metaData.getColumnLabel(i));
+        }
+        int[] columns = model.resolveColumns(List.copyOf(labels));
+        ColumnReader[] readers = new ColumnReader[columns.length];
+        for (int i = 0; i < readers.length; i++) {
+            readers[i] = readerFor(model.properties.get(i).type());
+        }
+        return new Binding(columns, readers);
+    }
+
+    private static ColumnReader readerFor(Class<?> type) {
+        if (type == String.class) {
+            return ResultSet::getString;
+        } else if (type == int.class) {
+            return ResultSet::getInt;
+        } else if (type == long.class) {
+            return ResultSet::getLong;
+        } else if (type == double.class) {
+            return ResultSet::getDouble;
+        } else if (type == float.class) {
+            return ResultSet::getFloat;
+        } else if (type == boolean.class) {
+            return ResultSet::getBoolean;
+        } else if (type == short.class) {
+            return ResultSet::getShort;
+        } else if (type == byte.class) {
+            return ResultSet::getByte;
+        } else if (type == byte[].class) {
+            return ResultSet::getBytes;
+        }
+        return (resultSet, column) -> resultSet.getObject(column, type);
+    }
+}
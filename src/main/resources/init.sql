@@ -7,4 +7,9 @@ CREATE TABLE users(
                       user_id serial PRIMARY KEY,
                       username VARCHAR(25),
                       email VARCHAR(25)
+);
+
+CREATE TABLE IF NOT EXISTS job_checkpoints(
+                      job_name VARCHAR(100) PRIMARY KEY,
+                      last_key BIGINT NOT NULL
 );
\ No newline at end of file
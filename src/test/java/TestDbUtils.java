@@ -1,20 +1,71 @@
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
 import com.liaverg.config.DataSourceProvider;
+import com.liaverg.config.PoolWarmer;
+import com.liaverg.config.PoolWarmer.WarmupReport;
+import com.liaverg.config.WarmupSettings;
+import com.liaverg.metrics.CallSiteHoldStats;
+import com.liaverg.metrics.ConnectionHoldProfiler;
+import com.liaverg.metrics.DbMetrics;
+import com.liaverg.utilities.ChunkedProcessor;
+import com.liaverg.utilities.ChunkedProcessor.Checkpoint;
+import com.liaverg.utilities.ColumnarResult;
+import com.liaverg.utilities.CopyExporter;
+import com.liaverg.utilities.CopyExporter.ExportResult;
+import com.liaverg.utilities.CopyLoader;
+import com.liaverg.utilities.CopyLoader.CopyResult;
 import com.liaverg.utilities.DbUtils;
 import com.liaverg.utilities.DbUtils.ConnectionConsumer;
 import com.liaverg.utilities.DbUtils.ConnectionFunction;
+import com.liaverg.utilities.DbUtils.ParameterBinder;
+import com.liaverg.utilities.DbUtils.Propagation;
+import com.liaverg.utilities.DbUtils.RowMapper;
+import com.liaverg.utilities.GroupCommitExecutor;
+import com.liaverg.utilities.PartitionedQuery;
+import com.liaverg.utilities.QueryResultCache;
+import com.liaverg.utilities.ReplicaBalancer;
+import com.liaverg.utilities.ReplicaRouter;
+import com.liaverg.utilities.RetryPolicy;
+import com.liaverg.utilities.SampledQueryLogListener;
+import com.liaverg.utilities.ShardRouter;
+import com.liaverg.utilities.StatementCache;
+import com.liaverg.utilities.TypedRowMapper;
+import com.zaxxer.hikari.HikariDataSource;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
 import org.testcontainers.containers.PostgreSQLContainer;
 import org.testcontainers.junit.jupiter.Container;
 import org.testcontainers.junit.jupiter.Testcontainers;
 
 import javax.sql.DataSource;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -25,7 +76,12 @@ public class TestDbUtils {
     private static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16")
             .withInitScript("init.sql");
 
+    @Container
+    private static final PostgreSQLContainer<?> replica = new PostgreSQLContainer<>("postgres:16")
+            .withInitScript("init.sql");
+
     private static DataSource dataSource;
+    private static DataSource replicaDataSource;
     private static final int LEAK_DETECTION_THRESHOLD = 3000;
 
     @BeforeAll
@@ -38,6 +94,12 @@ public class TestDbUtils {
         );
         new DbUtils(dataSourceProvider.getHikariProxyDataSource());
         dataSource = dataSourceProvider.getHikariDataSource();
+        replicaDataSource = new DataSourceProvider(
+                replica.getJdbcUrl(),
+                replica.getUsername(),
+                replica.getPassword(),
+                LEAK_DETECTION_THRESHOLD
+        ).getHikariDataSource();
     }
 
     @AfterEach
@@ -46,6 +108,11 @@ public class TestDbUtils {
     }
 
     private void truncateTable() throws SQLException {
+        truncateTable(dataSource);
+        truncateTable(replicaDataSource);
+    }
+
+    private void truncateTable(DataSource dataSource) throws SQLException {
         try (Connection conn = dataSource.getConnection()) {
             String truncateSQL = "TRUNCATE TABLE users_directory.users";
             try (PreparedStatement truncateStatement = conn.prepareStatement(truncateSQL)) {
@@ -71,6 +138,13 @@ public class TestDbUtils {
         }
     }
 
+    private ParameterBinder userBinder(String username, String email) {
+        return statement -> {
+            statement.setString(1, username);
+            statement.setString(2, email);
+        };
+    }
+
     private int updateUser(Connection conn, String username, String email) throws SQLException {
         String updateSQL = "UPDATE users_directory.users SET email = ? WHERE username = ?";
         try (PreparedStatement updateStatement = conn.prepareStatement(updateSQL)) {
@@ -305,4 +379,750 @@ public class TestDbUtils {
         verifyTwoRecordsInTheDatabase("john_doe", "john.doe@example.com",
                 "jane_doe", "jane.doe@example.com");
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Successful Batch Insert in Chunks")
+    void should_insert_records_in_chunks_when_batching() throws Exception {
+        String insertSQL = "INSERT INTO users_directory.users (username, email) VALUES (?, ?)";
+        List<ParameterBinder> binders = List.of(
+                userBinder("john_doe", "john.doe@example.com"),
+                userBinder("jane_doe", "jane.doe@example.com"),
+                userBinder("jake_doe", "jake.doe@example.com"));
+
+        List<int[]> updateCounts = DbUtils.executeBatch(insertSQL, binders, 2);
+
+        assertEquals(2, updateCounts.size());
+        assertEquals(2, updateCounts.get(0).length);
+        assertEquals(1, updateCounts.get(1).length);
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement countStatement = conn.prepareStatement("SELECT count(*) FROM users_directory.users");
+             ResultSet resultSet = countStatement.executeQuery()) {
+            assertTrue(resultSet.next());
+            assertEquals(3, resultSet.getInt(1));
+        }
+    }
+
+    @Test
+    @DisplayName("Failed Batch Insert in Outer Transaction")
+    void should_fail_to_insert_batch_when_outer_transaction_fails() throws Exception {
+        String insertSQL = "INSERT INTO users_directory.users (username, email) VALUES (?, ?)";
+        ConnectionConsumer failedBatchInsert = conn -> {
+            DbUtils.executeBatch(insertSQL, List.of(
+                    userBinder("john_doe", "john.doe@example.com"),
+                    userBinder("jane_doe", "jane.doe@example.com")));
+            throw new SQLException("Simulated exception during statement execution");
+        };
+
+        assertThrows(RuntimeException.class, () -> DbUtils.executeStatementsInTransaction(failedBatchInsert));
+
+        verifyNoRecordInTheDatabase();
+    }
+
+    @Test
+    @DisplayName("Cached Statement Reused within Transaction")
+    void should_reuse_cached_statement_when_in_transaction() throws Exception {
+        String insertSQL = "INSERT INTO users_directory.users (username, email) VALUES (?, ?)";
+        ConnectionConsumer cachedInsert = conn -> {
+            PreparedStatement first = DbUtils.prepareCachedStatement(insertSQL);
+            first.setString(1, "john_doe");
+            first.setString(2, "john.doe@example.com");
+            first.executeUpdate();
+            PreparedStatement second = DbUtils.prepareCachedStatement(insertSQL);
+            assertSame(first, second);
+            second.setString(1, "jane_doe");
+            second.setString(2, "jane.doe@example.com");
+            second.executeUpdate();
+        };
+        StatementCache.resetStatistics();
+
+        assertDoesNotThrow(() -> DbUtils.executeStatementsInTransaction(cachedInsert));
+
+        assertEquals(1, StatementCache.getHitCount());
+        assertEquals(1, StatementCache.getMissCount());
+        verifyTwoRecordsInTheDatabase("john_doe", "john.doe@example.com",
+                "jane_doe", "jane.doe@example.com");
+    }
+
+    @Test
+    @DisplayName("Cached Statement Rejected outside Transaction")
+    void should_fail_to_prepare_cached_statement_when_no_transaction() {
+        assertThrows(IllegalStateException.class,
+                () -> DbUtils.prepareCachedStatement("SELECT 1"));
+    }
+
+    @Test
+    @DisplayName("Successful Streaming Select with Cursor")
+    void should_stream_records_when_querying_with_cursor() throws Exception {
+        insertTwoRecords("john_doe", "john.doe@example.com",
+                "jane_doe", "jane.doe@example.com");
+        String selectSQL = "SELECT username FROM users_directory.users ORDER BY user_id";
+
+        List<String> usernames;
+        try (Stream<String> users = DbUtils.queryStream(selectSQL, statement -> {},
+                resultSet -> resultSet.getString("username"), 1)) {
+            usernames = users.collect(Collectors.toList());
+        }
+
+        assertEquals(List.of("john_doe", "jane_doe"), usernames);
+    }
+
+    @Test
+    @DisplayName("Streaming Select Joins Outer Transaction")
+    void should_stream_uncommitted_records_when_in_transaction() throws Exception {
+        String selectSQL = "SELECT username FROM users_directory.users ORDER BY user_id";
+        ConnectionFunction<List<String>> insertAndStream = conn -> {
+            insertUser(conn, "john_doe", "john.doe@example.com");
+            try (Stream<String> users = DbUtils.queryStream(selectSQL,
+                    resultSet -> resultSet.getString("username"))) {
+                return users.collect(Collectors.toList());
+            }
+        };
+
+        assertEquals(List.of("john_doe"), DbUtils.executeStatementsInTransactionWithResult(insertAndStream));
+    }
+
+    @Test
+    @DisplayName("Successful CSV Copy Load")
+    void should_load_records_when_copying_csv() throws Exception {
+        Stream<Object[]> rows = Stream.of(
+                new Object[]{"john_doe", "john.doe@example.com"},
+                new Object[]{"jane_doe", "jane.doe@example.com"});
+
+        CopyResult result = CopyLoader.load("users_directory.users", List.of("username", "email"),
+                rows, CopyLoader.Format.CSV);
+
+        assertEquals(2, result.rowCount());
+        assertTrue(result.byteCount() > 0);
+        verifyTwoRecordsInTheDatabase("john_doe", "john.doe@example.com",
+                "jane_doe", "jane.doe@example.com");
+    }
+
+    @Test
+    @DisplayName("Failed Binary Copy Load in Outer Transaction")
+    void should_fail_to_load_records_when_outer_transaction_fails() throws Exception {
+        ConnectionConsumer failedCopy = conn -> {
+            CopyLoader.load(conn, "users_directory.users", List.of("username", "email"),
+                    Stream.of(new Object[]{"john_doe", "john.doe@example.com"},
+                            new Object[]{"jane_doe", "jane.doe@example.com"}),
+                    CopyLoader.Format.BINARY);
+            throw new SQLException("Simulated exception during statement execution");
+        };
+
+        assertThrows(RuntimeException.class, () -> DbUtils.executeStatementsInTransaction(failedCopy));
+
+        verifyNoRecordInTheDatabase();
+    }
+
+    @Test
+    @DisplayName("Successful Asynchronous Inserts in Transactions")
+    void should_insert_records_when_in_async_transactions() throws Exception {
+        CompletableFuture<Void> johnInsert = DbUtils.executeInTransactionAsync(conn -> {
+            insertUser(conn, "john_doe", "john.doe@example.com");
+            return null;
+        });
+        johnInsert.get();
+        CompletableFuture<Void> janeInsert = DbUtils.executeInTransactionAsync(conn -> {
+            insertUser(conn, "jane_doe", "jane.doe@example.com");
+            return null;
+        });
+        janeInsert.get();
+
+        verifyTwoRecordsInTheDatabase("john_doe", "john.doe@example.com",
+                "jane_doe", "jane.doe@example.com");
+    }
+
+    @Test
+    @DisplayName("Failed Asynchronous Inner Insert Joins Outer Transaction")
+    void should_fail_to_insert_when_async_inner_insert_fails_in_nested_transactions() throws Exception {
+        ConnectionConsumer failedAsyncInnerInsert = conn -> {
+            CompletableFuture<Object> innerInsert = DbUtils.executeInTransactionAsync(connection -> {
+                insertUser(connection, "john_doe", "john.doe@example.com");
+                throw new SQLException("Simulated exception during statement execution");
+            });
+            assertThrows(ExecutionException.class, innerInsert::get);
+            insertUser(conn, "jane_doe", "jane.doe@example.com");
+        };
+
+        assertDoesNotThrow(() -> DbUtils.executeStatementsInTransaction(failedAsyncInnerInsert));
+
+        verifyNoRecordInTheDatabase();
+    }
+
+    @Test
+    @DisplayName("Successful Partitioned Count in Consistent Snapshot")
+    void should_count_records_when_scanning_partitions_in_snapshot() throws Exception {
+        insertTwoRecords("john_doe", "john.doe@example.com",
+                "jane_doe", "jane.doe@example.com");
+        long[] keyRange = DbUtils.executeStatementsWithResult(conn -> {
+            try (PreparedStatement rangeStatement = conn.prepareStatement(
+                    "SELECT min(user_id), max(user_id) FROM users_directory.users");
+                 ResultSet resultSet = rangeStatement.executeQuery()) {
+                resultSet.next();
+                return new long[]{resultSet.getLong(1), resultSet.getLong(2)};
+            }
+        });
+        String countSQL = "SELECT count(*) FROM users_directory.users WHERE user_id >= ? AND user_id < ?";
+
+        Long count = PartitionedQuery.execute(countSQL, keyRange[0], keyRange[1], 2, 2, true,
+                resultSet -> {
+                    resultSet.next();
+                    return resultSet.getLong(1);
+                }, Long::sum);
+
+        assertEquals(2, count);
+    }
+
+    @Test
+    @DisplayName("Successful Partitioned Count without Snapshot")
+    void should_count_records_when_scanning_partitions_without_snapshot() throws Exception {
+        insertTwoRecords("john_doe", "john.doe@example.com",
+                "jane_doe", "jane.doe@example.com");
+        insertTwoRecords("jake_doe", "jake.doe@example.com",
+                "jill_doe", "jill.doe@example.com");
+        long[] keyRange = DbUtils.executeStatementsWithResult(conn -> {
+            try (PreparedStatement rangeStatement = conn.prepareStatement(
+                    "SELECT min(user_id), max(user_id) FROM users_directory.users");
+                 ResultSet resultSet = rangeStatement.executeQuery()) {
+                resultSet.next();
+                return new long[]{resultSet.getLong(1), resultSet.getLong(2)};
+            }
+        });
+        String countSQL = "SELECT count(*) FROM users_directory.users WHERE user_id >= ? AND user_id < ?";
+
+        Long count = PartitionedQuery.execute(countSQL, keyRange[0], keyRange[1], 3,
+                resultSet -> {
+                    resultSet.next();
+                    return resultSet.getLong(1);
+                }, Long::sum);
+
+        assertEquals(4, count);
+    }
+
+    @Test
+    @DisplayName("Read-Only Select Routed to Replica")
+    void should_read_from_replica_when_read_only() throws Exception {
+        try (Connection conn = replicaDataSource.getConnection()) {
+            insertUser(conn, "john_doe", "john.doe@example.com");
+            insertUser(conn, "jake_doe", "jake.doe@example.com");
+        }
+        ConnectionFunction<Integer> countUsers = conn -> {
+            try (PreparedStatement countStatement = conn.prepareStatement("SELECT count(*) FROM users_directory.users");
+                 ResultSet resultSet = countStatement.executeQuery()) {
+                resultSet.next();
+                return resultSet.getInt(1);
+            }
+        };
+        DbUtils.setReplicaRouter(new ReplicaRouter(List.of(replicaDataSource), ReplicaBalancer.leastInFlight()));
+        try {
+            assertEquals(2, DbUtils.executeReadOnly(countUsers));
+            int countInWriteTransaction = DbUtils.executeStatementsInTransactionWithResult(conn -> {
+                insertUser(conn, "jane_doe", "jane.doe@example.com");
+                return DbUtils.executeReadOnly(countUsers);
+            });
+            assertEquals(1, countInWriteTransaction);
+        } finally {
+            DbUtils.setReplicaRouter(null);
+        }
+        assertEquals(1, DbUtils.executeReadOnly(countUsers));
+    }
+
+    @Test
+    @DisplayName("Cached Query Invalidated on Commit but not on Rollback")
+    void should_invalidate_cached_query_only_when_write_transaction_commits() throws Exception {
+        insertTwoRecords("john_doe", "john.doe@example.com",
+                "jane_doe", "jane.doe@example.com");
+        String selectSQL = "SELECT email FROM users_directory.users WHERE username = ?";
+        RowMapper<String> emailMapper = resultSet -> resultSet.getString("email");
+        QueryResultCache cache = new QueryResultCache(16, Duration.ofMinutes(1));
+        DbUtils.setQueryResultCache(cache);
+        try {
+            assertEquals(List.of("john.doe@example.com"),
+                    DbUtils.executeCachedQuery(selectSQL, List.of("john_doe"), emailMapper));
+            assertThrows(RuntimeException.class, () -> DbUtils.executeStatementsInTransaction(conn -> {
+                updateUser(conn, "john_doe", "john.doe@gmail.com");
+                throw new SQLException("Simulated exception during statement execution");
+            }));
+            assertEquals(List.of("john.doe@example.com"),
+                    DbUtils.executeCachedQuery(selectSQL, List.of("john_doe"), emailMapper));
+            assertEquals(1, cache.getHitCount());
+
+            DbUtils.executeStatementsInTransaction(conn -> updateUser(conn, "john_doe", "john.doe@gmail.com"));
+
+            assertEquals(List.of("john.doe@gmail.com"),
+                    DbUtils.executeCachedQuery(selectSQL, List.of("john_doe"), emailMapper));
+            assertEquals(1, cache.getInvalidationCount());
+        } finally {
+            DbUtils.setQueryResultCache(null);
+        }
+    }
+
+    @Test
+    @DisplayName("Cached Query Keyed by Mapper Instance and Invalidated by Autonomous Writes")
+    void should_keep_cached_rows_apart_when_mappers_capture_different_state() throws Exception {
+        insertTwoRecords("john_doe", "john.doe@example.com",
+                "jane_doe", "jane.doe@example.com");
+        String selectSQL = "SELECT email FROM users_directory.users WHERE username = ?";
+        List<RowMapper<String>> prefixMappers = new ArrayList<>();
+        for (String prefix : List.of("a:", "b:")) {
+            prefixMappers.add(resultSet -> prefix + resultSet.getString("email"));
+        }
+        RowMapper<String> emailMapper = resultSet -> resultSet.getString("email");
+        DbUtils.setQueryResultCache(new QueryResultCache(16, Duration.ofMinutes(1)));
+        try {
+            assertEquals(List.of("a:john.doe@example.com"),
+                    DbUtils.executeCachedQuery(selectSQL, List.of("john_doe"), prefixMappers.get(0)));
+            assertEquals(List.of("b:john.doe@example.com"),
+                    DbUtils.executeCachedQuery(selectSQL, List.of("john_doe"), prefixMappers.get(1)));
+
+            assertEquals(List.of("john.doe@example.com"),
+                    DbUtils.executeCachedQuery(selectSQL, List.of("john_doe"), emailMapper));
+            assertThrows(RuntimeException.class, () -> DbUtils.executeStatementsInTransaction(conn -> {
+                DbUtils.executeStatements(ownConnection ->
+                        updateUser(ownConnection, "john_doe", "john.doe@gmail.com"));
+                throw new SQLException("Simulated exception during statement execution");
+            }));
+            assertEquals(List.of("john.doe@gmail.com"),
+                    DbUtils.executeCachedQuery(selectSQL, List.of("john_doe"), emailMapper));
+        } finally {
+            DbUtils.setQueryResultCache(null);
+        }
+    }
+
+    @Test
+    @DisplayName("Metrics Recorded for Committed and Rolled Back Transactions")
+    void should_record_metrics_when_transactions_complete() throws Exception {
+        String insertSQL = "INSERT INTO users_directory.users (username, email) VALUES (?, ?)";
+        DbMetrics metrics = DbMetrics.getInstance();
+        metrics.reset();
+
+        DbUtils.executeStatementsInTransaction(conn -> insertUser(conn, "john_doe", "john.doe@example.com"));
+        assertThrows(RuntimeException.class, () -> DbUtils.executeStatementsInTransaction(conn -> {
+            insertUser(conn, "jane_doe", "jane.doe@example.com");
+            throw new SQLException("Simulated exception during statement execution");
+        }));
+
+        assertEquals(1, metrics.getCommitCount());
+        assertEquals(1, metrics.getRollbackCount());
+        assertEquals(2, metrics.getTransactionLatency().getCount());
+        assertEquals(2, metrics.getQueryLatencies().get(insertSQL).getCount());
+        assertTrue(metrics.getConnectionAcquisitionLatency().getCount() >= 2);
+    }
+
+    @Test
+    @DisplayName("Failed Inner Insert Rolled Back to Savepoint in Nested Transactions")
+    void should_insert_outer_record_when_inner_savepoint_insert_fails() throws Exception {
+        ConnectionConsumer failedInnerSavepointInsert = conn -> {
+            assertThrows(RuntimeException.class, () -> DbUtils.executeStatementsInTransaction(connection -> {
+                assertEquals(2, DbUtils.getTransactionDepth());
+                insertUser(connection, "jake_doe", "jake.doe@example.com");
+                throw new SQLException("Simulated exception during statement execution");
+            }, Propagation.NESTED));
+            insertUser(conn, "john_doe", "john.doe@example.com");
+            DbUtils.executeStatementsInTransaction(connection ->
+                    insertUser(connection, "jane_doe", "jane.doe@example.com"), Propagation.NESTED);
+        };
+
+        assertDoesNotThrow(() -> DbUtils.executeStatementsInTransaction(failedInnerSavepointInsert));
+
+        assertEquals(0, DbUtils.getTransactionDepth());
+        verifyTwoRecordsInTheDatabase("john_doe", "john.doe@example.com",
+                "jane_doe", "jane.doe@example.com");
+    }
+
+    @Test
+    @DisplayName("Serialization Failure Retried in Serializable Transaction")
+    void should_insert_once_when_serialization_failure_is_retried() throws Exception {
+        AtomicInteger attempts = new AtomicInteger();
+        ConnectionConsumer insertWithSerializationFailure = conn -> {
+            insertUser(conn, "john_doe", "john.doe@example.com");
+            if (attempts.incrementAndGet() == 1) {
+                throw new SQLException("Simulated serialization failure", "40001");
+            }
+            insertUser(conn, "jane_doe", "jane.doe@example.com");
+        };
+        DbMetrics.getInstance().reset();
+
+        assertDoesNotThrow(() -> DbUtils.executeStatementsInTransaction(insertWithSerializationFailure,
+                Connection.TRANSACTION_SERIALIZABLE));
+
+        assertEquals(2, attempts.get());
+        assertEquals(1, DbMetrics.getInstance().getRetryCount());
+        assertEquals(1, DbMetrics.getInstance().getRetriedSuccessCount());
+        verifyTwoRecordsInTheDatabase("john_doe", "john.doe@example.com",
+                "jane_doe", "jane.doe@example.com");
+    }
+
+    @Test
+    @DisplayName("Serialization Failure Not Retried in Streamed Batch")
+    void should_roll_back_without_retry_when_streamed_batch_hits_serialization_failure() throws Exception {
+        String insertSQL = "INSERT INTO users_directory.users (username, email) VALUES (?, ?)";
+        AtomicInteger bound = new AtomicInteger();
+        Stream<ParameterBinder> binders = Stream.of("john_doe", "jane_doe", "jake_doe", "jill_doe")
+                .map(username -> statement -> {
+                    if (bound.incrementAndGet() == 3) {
+                        throw new SQLException("Simulated serialization failure", "40001");
+                    }
+                    userBinder(username, username + "@example.com").bind(statement);
+                });
+        DbMetrics.getInstance().reset();
+
+        RuntimeException failure = assertThrows(RuntimeException.class,
+                () -> DbUtils.executeBatch(insertSQL, binders, 2));
+
+        assertTrue(RetryPolicy.isRetryable(failure));
+        assertEquals(3, bound.get());
+        assertEquals(0, DbMetrics.getInstance().getRetryCount());
+        verifyNoRecordInTheDatabase();
+    }
+
+    record User(int userId, String username, String email) {
+    }
+
+    @Test
+    @DisplayName("Successful Record Mapping in List and Streaming Selects")
+    void should_map_records_when_selecting_with_typed_mapper() throws Exception {
+        insertTwoRecords("john_doe", "john.doe@example.com",
+                "jane_doe", "jane.doe@example.com");
+        String selectSQL = "SELECT email, username, user_id FROM users_directory.users ORDER BY user_id";
+        TypedRowMapper<User> userMapper = TypedRowMapper.of(User.class);
+
+        List<User> listedUsers = DbUtils.queryList(selectSQL, List.of(), userMapper);
+        List<User> streamedUsers;
+        try (Stream<User> users = DbUtils.queryStream(selectSQL, userMapper)) {
+            streamedUsers = users.collect(Collectors.toList());
+        }
+
+        assertEquals(List.of("john_doe", "jane_doe"), listedUsers.stream().map(User::username).toList());
+        assertEquals("jane.doe@example.com", listedUsers.get(1).email());
+        assertEquals(listedUsers, streamedUsers);
+        assertThrows(RuntimeException.class, () -> DbUtils.queryList(
+                "SELECT username FROM users_directory.users", List.of(), userMapper));
+    }
+
+    @Test
+    @DisplayName("Grouped Inserts Committed Together Despite Failed Unit")
+    void should_insert_other_records_when_grouped_unit_fails() throws Exception {
+        GroupCommitExecutor executor = new GroupCommitExecutor(3, Duration.ofSeconds(5));
+        DbUtils.setGroupCommitExecutor(executor);
+        try {
+            CompletableFuture<Void> johnInsert = DbUtils.executeInGroupCommit(conn -> {
+                insertUser(conn, "john_doe", "john.doe@example.com");
+                return null;
+            });
+            CompletableFuture<Void> failedInsert = DbUtils.executeInGroupCommit(conn -> {
+                insertUser(conn, "failed_user", "failed@example.com");
+                throw new SQLException("Simulated exception during statement execution");
+            });
+            CompletableFuture<Void> janeInsert = DbUtils.executeInGroupCommit(conn -> {
+                insertUser(conn, "jane_doe", "jane.doe@example.com");
+                return null;
+            });
+
+            assertDoesNotThrow(() -> johnInsert.get());
+            assertThrows(ExecutionException.class, failedInsert::get);
+            assertDoesNotThrow(() -> janeInsert.get());
+            assertEquals(1, executor.getCommitCount());
+            verifyTwoRecordsInTheDatabase("john_doe", "john.doe@example.com",
+                    "jane_doe", "jane.doe@example.com");
+        } finally {
+            DbUtils.setGroupCommitExecutor(null);
+        }
+    }
+
+    @Test
+    @DisplayName("Chunked Keyset Processing Resumed from Checkpoint after Failure")
+    void should_resume_from_checkpoint_when_chunk_processing_fails() throws Exception {
+        try (Connection conn = dataSource.getConnection()) {
+            for (String username : List.of("user_a", "user_b", "user_c", "user_d", "user_e")) {
+                insertUser(conn, username, username + "@example.com");
+            }
+        }
+        Checkpoint checkpoint = Checkpoint.table("users_directory.job_checkpoints",
+                "resume-" + System.nanoTime(), 0);
+        ChunkedProcessor.Settings settings = new ChunkedProcessor.Settings(2, 1, 2, Duration.ofSeconds(1), 1);
+        List<String> processedUsernames = new ArrayList<>();
+
+        assertThrows(RuntimeException.class, () -> new ChunkedProcessor<>("users_directory.users", "user_id",
+                resultSet -> resultSet.getString("username"), checkpoint, settings).process((conn, usernames) -> {
+            if (usernames.contains("user_c")) {
+                throw new SQLException("Simulated exception during chunk processing");
+            }
+            processedUsernames.addAll(usernames);
+        }));
+        ChunkedProcessor.Progress progress = new ChunkedProcessor<>("users_directory.users", "user_id",
+                resultSet -> resultSet.getString("username"), checkpoint, settings)
+                .process((conn, usernames) -> processedUsernames.addAll(usernames));
+
+        assertEquals(List.of("user_a", "user_b", "user_c", "user_d", "user_e"), processedUsernames);
+        assertEquals(2, progress.chunkCount());
+        assertEquals(progress.lastKey(), checkpoint.load());
+    }
+
+    @Test
+    @DisplayName("Parallel Chunked Processing Visits Each Key Once with Contiguous Checkpoints")
+    void should_process_each_key_once_when_chunks_run_in_parallel() throws Exception {
+        List<Long> userIds = new ArrayList<>();
+        try (Connection conn = dataSource.getConnection()) {
+            for (int i = 0; i < 23; i++) {
+                insertUser(conn, "user_" + i, "user_" + i + "@example.com");
+            }
+            try (PreparedStatement selectStatement = conn.prepareStatement(
+                    "SELECT user_id FROM users_directory.users ORDER BY user_id");
+                 ResultSet resultSet = selectStatement.executeQuery()) {
+                while (resultSet.next()) {
+                    userIds.add(resultSet.getLong(1));
+                }
+            }
+        }
+        Map<Long, Integer> processedCounts = new ConcurrentHashMap<>();
+        List<Long> savedKeys = new CopyOnWriteArrayList<>();
+        List<Long> checkpointsPastUnfinishedChunks = new CopyOnWriteArrayList<>();
+        Checkpoint inMemory = Checkpoint.inMemory(0);
+        Checkpoint checkpoint = new Checkpoint() {
+            @Override
+            public long load() {
+                return inMemory.load();
+            }
+
+            @Override
+            public void save(Connection conn, long lastKey) throws SQLException {
+                if (userIds.stream().filter(id -> id <= lastKey).anyMatch(id -> !processedCounts.containsKey(id))) {
+                    checkpointsPastUnfinishedChunks.add(lastKey);
+                }
+                savedKeys.add(lastKey);
+                inMemory.save(conn, lastKey);
+            }
+        };
+        ChunkedProcessor.Settings settings = new ChunkedProcessor.Settings(3, 3, 3, Duration.ofSeconds(1), 3);
+
+        ChunkedProcessor.Progress progress = new ChunkedProcessor<>("users_directory.users", "user_id",
+                resultSet -> resultSet.getLong("user_id"), checkpoint, settings).process((conn, ids) -> {
+            try {
+                Thread.sleep(ids.get(0) % 2 == 0 ? 50 : 0);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            ids.forEach(id -> processedCounts.merge(id, 1, Integer::sum));
+        });
+
+        assertEquals(23, progress.rowCount());
+        assertEquals(userIds.size(), processedCounts.size());
+        assertTrue(processedCounts.values().stream().allMatch(count -> count == 1));
+        assertEquals(List.of(), checkpointsPastUnfinishedChunks);
+        assertEquals(savedKeys.stream().sorted().toList(), savedKeys);
+        assertEquals(userIds.get(userIds.size() - 1), checkpoint.load());
+    }
+
+    @Test
+    @DisplayName("Pool Warmed Up before Readiness Completes")
+    void should_complete_readiness_when_pool_is_warmed_up() throws Exception {
+        WarmupSettings settings = new WarmupSettings(true,
+                List.of("SELECT 1", "SELECT username FROM users_directory.users WHERE user_id = 0"), 5);
+
+        WarmupReport report = new PoolWarmer("test", dataSource, 4, 5000, settings)
+                .start(System.nanoTime())
+                .get();
+
+        assertEquals(4, report.connections());
+        assertEquals(40, report.statementExecutions());
+        assertTrue(((HikariDataSource) dataSource).getHikariPoolMXBean().getTotalConnections() >= 4);
+    }
+
+    @Test
+    @DisplayName("Slow Transaction Cancelled and Rolled Back at Deadline")
+    void should_rollback_when_transaction_exceeds_deadline() throws Exception {
+        ConnectionConsumer slowInsert = conn -> {
+            insertUser(conn, "john_doe", "john.doe@example.com");
+            try (PreparedStatement sleepStatement = conn.prepareStatement("SELECT pg_sleep(5)")) {
+                sleepStatement.execute();
+            }
+        };
+        long startNanos = System.nanoTime();
+
+        assertThrows(RuntimeException.class, () -> DbUtils.withDeadline(Duration.ofMillis(500),
+                () -> DbUtils.withDeadline(Duration.ofSeconds(10),
+                        () -> DbUtils.executeStatementsInTransaction(slowInsert))));
+
+        assertTrue(Duration.ofNanos(System.nanoTime() - startNanos).compareTo(Duration.ofSeconds(2)) < 0);
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement countStatement = conn.prepareStatement("SELECT COUNT(*) FROM users_directory.users");
+             ResultSet resultSet = countStatement.executeQuery()) {
+            resultSet.next();
+            assertEquals(0, resultSet.getInt(1));
+        }
+    }
+
+    @Test
+    @DisplayName("Inserts Routed to Shards by Username and Gathered from All Shards")
+    void should_route_by_username_and_gather_when_sharded() throws Exception {
+        ShardRouter router = new ShardRouter(List.of(
+                DbUtils.register("shard-0", dataSource),
+                DbUtils.register("shard-1", replicaDataSource)));
+        List<String> usernames = List.of("john_doe", "jane_doe", "jake_doe", "jill_doe");
+        String countSQL = "SELECT COUNT(*) FROM users_directory.users";
+        ConnectionFunction<Integer> countUsers = conn -> {
+            try (PreparedStatement countStatement = conn.prepareStatement(countSQL);
+                 ResultSet resultSet = countStatement.executeQuery()) {
+                resultSet.next();
+                return resultSet.getInt(1);
+            }
+        };
+
+        for (String username : usernames) {
+            router.inTransaction(username, conn -> {
+                insertUser(conn, username, username + "@example.com");
+                return null;
+            });
+        }
+
+        for (String username : usernames) {
+            assertEquals(1, router.shardFor(username).query(
+                    "SELECT username FROM users_directory.users WHERE username = ?", List.of(username),
+                    resultSet -> resultSet.getString("username")).size());
+        }
+        assertEquals(usernames.size(), router.scatterGather(countUsers, Integer::sum));
+        assertEquals(usernames.stream().sorted().toList(), router.queryAll(
+                "SELECT username FROM users_directory.users ORDER BY username", List.of(),
+                resultSet -> resultSet.getString("username"), Comparator.naturalOrder()));
+        assertThrows(IllegalStateException.class, () -> DbUtils.named("shard-0").inTransaction(
+                conn -> DbUtils.named("shard-1").inTransaction(countUsers)));
+    }
+
+    @Test
+    @DisplayName("Successful Compressed CSV Copy Export to File")
+    void should_export_records_when_copying_csv_to_compressed_file() throws Exception {
+        insertTwoRecords("john_doe", "john.doe@example.com",
+                "jane_doe", "jane.doe@example.com");
+        Path exportFile = Files.createTempFile("users", ".csv.gz");
+
+        ExportResult result;
+        String exported;
+        try {
+            result = CopyExporter.export("(SELECT username, email FROM users_directory.users ORDER BY user_id)",
+                    CopyLoader.Format.CSV, exportFile, CopyExporter.Compression.GZIP);
+            try (InputStream in = new GZIPInputStream(Files.newInputStream(exportFile))) {
+                exported = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            }
+        } finally {
+            Files.deleteIfExists(exportFile);
+        }
+
+        assertEquals(2, result.rowCount());
+        assertEquals("john_doe,john.doe@example.com\njane_doe,jane.doe@example.com\n", exported);
+        assertEquals(exported.length(), result.byteCount());
+        assertTrue(result.bytesPerSecond() > 0);
+    }
+
+    @Test
+    @DisplayName("Successful Hold Time Profiling by Call Site")
+    void should_attribute_hold_time_to_caller_when_profiling_transactions() {
+        ConnectionHoldProfiler profiler = ConnectionHoldProfiler.getInstance();
+        profiler.reset();
+        profiler.setSampleRate(1.0);
+        profiler.setEnabled(true);
+        List<CallSiteHoldStats> topCallSites;
+        try {
+            DbUtils.executeStatementsInTransaction(conn -> {
+                insertUser(conn, "john_doe", "john.doe@example.com");
+                insertUser(conn, "jane_doe", "jane.doe@example.com");
+            });
+            topCallSites = profiler.getTopCallSites(1);
+        } finally {
+            profiler.setEnabled(false);
+            profiler.reset();
+        }
+
+        assertEquals(1, topCallSites.size());
+        CallSiteHoldStats insertCallSite = topCallSites.get(0);
+        assertTrue(insertCallSite.getCallSite().startsWith(TestDbUtils.class.getName() + "."));
+        assertEquals(1, insertCallSite.getSampleCount());
+        assertEquals(2.0, insertCallSite.getMeanStatementCount());
+        assertTrue(insertCallSite.getIdleRatio() >= 0 && insertCallSite.getIdleRatio() <= 1);
+    }
+
+    @Test
+    @DisplayName("Successful Columnar Select with Dictionary-Encoded Strings")
+    void should_read_columns_when_selecting_into_columnar_result() throws SQLException {
+        insertTwoRecords("john_doe", "john.doe@example.com",
+                "jane_doe", "jane.doe@example.com");
+
+        ColumnarResult users = DbUtils.queryColumnar(
+                "SELECT user_id, split_part(email, '@', 2) AS domain FROM users_directory.users ORDER BY user_id",
+                List.of(), ColumnarResult.Settings.DEFAULT.withStorage(ColumnarResult.Storage.OFF_HEAP));
+
+        int userId = users.columnIndex("user_id");
+        int domain = users.columnIndex("domain");
+        assertEquals(2, users.getRowCount());
+        assertEquals(ColumnarResult.ColumnType.INT, users.getColumnType(userId));
+        assertTrue(users.isDictionaryEncoded(domain));
+        assertEquals(1, users.getDictionarySize(domain));
+        ColumnarResult.Cursor cursor = users.cursor();
+        List<Integer> userIds = new ArrayList<>();
+        while (cursor.next()) {
+            userIds.add(cursor.getInt(userId));
+            assertEquals("example.com", cursor.getString(domain));
+        }
+        assertEquals(2, userIds.size());
+        assertTrue(userIds.get(0) < userIds.get(1));
+        assertTrue(users.getFootprint().offHeapBytes() > 0);
+    }
+
+    @Test
+    @DisplayName("Columnar Result Falls Back to Plain Strings and Keeps Nulls")
+    void should_store_plain_strings_and_nulls_when_column_exceeds_dictionary_size() {
+        ColumnarResult result = DbUtils.queryColumnar(
+                "SELECT i AS id, CASE WHEN i % 5 = 0 THEN NULL ELSE i * 10 END AS score, "
+                        + "CASE WHEN i % 4 = 0 THEN NULL ELSE 'tag_' || i END AS tag "
+                        + "FROM generate_series(1, 20) AS i ORDER BY i",
+                List.of(), new ColumnarResult.Settings(ColumnarResult.Storage.HEAP, 4, 2));
+
+        int score = result.columnIndex("score");
+        int tag = result.columnIndex("tag");
+        assertEquals(20, result.getRowCount());
+        assertFalse(result.isDictionaryEncoded(tag));
+        ColumnarResult.Cursor cursor = result.cursor();
+        while (cursor.next()) {
+            int id = cursor.getRow() + 1;
+            assertEquals(id % 5 == 0, cursor.isNull(score));
+            if (id % 5 != 0) {
+                assertEquals(id * 10, cursor.getInt(score));
+            }
+            assertEquals(id % 4 == 0 ? null : "tag_" + id, cursor.getString(tag));
+        }
+    }
+
+    @Test
+    @DisplayName("Slow Queries Always Logged and Fast Queries Sampled")
+    void should_log_slow_queries_and_sample_fast_ones_when_query_log_is_sampled() {
+        Logger queryLogger = (Logger) LoggerFactory.getLogger(SampledQueryLogListener.class);
+        ListAppender<ILoggingEvent> appender = new ListAppender<>();
+        appender.start();
+        queryLogger.addAppender(appender);
+        try {
+            SampledQueryLogListener unsampled = new SampledQueryLogListener(100, 0.0);
+            unsampled.afterQuery(executionInfo(150), List.of(new QueryInfo("SELECT 'slow'")));
+            unsampled.afterQuery(executionInfo(5), List.of(new QueryInfo("SELECT 'fast'")));
+            unsampled.close();
+            SampledQueryLogListener fullySampled = new SampledQueryLogListener(100, 1.0);
+            fullySampled.afterQuery(executionInfo(5), List.of(new QueryInfo("SELECT 'sampled'")));
+            fullySampled.close();
+        } finally {
+            queryLogger.detachAppender(appender);
+        }
+
+        assertEquals(2, appender.list.size());
+        assertEquals(Level.WARN, appender.list.get(0).getLevel());
+        assertTrue(appender.list.get(0).getFormattedMessage().contains("SELECT 'slow'"));
+        assertEquals(Level.INFO, appender.list.get(1).getLevel());
+        assertTrue(appender.list.get(1).getFormattedMessage().contains("SELECT 'sampled'"));
+    }
+
+    private ExecutionInfo executionInfo(long elapsedMillis) {
+        ExecutionInfo executionInfo = new ExecutionInfo();
+        executionInfo.setDataSourceName("test");
+        executionInfo.setConnectionId("1");
+        executionInfo.setElapsedTime(elapsedMillis);
+        executionInfo.setSuccess(true);
+        return executionInfo;
+    }
+}
@@ -0,0 +1,126 @@
+package com.liaverg.config;
+
+import com.liaverg.metrics.PoolMetricsTracker;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class TestAdaptivePoolSizer {
+    private static final AdaptivePoolSettings SETTINGS = new AdaptivePoolSettings(true, 4, 12, 5, 1_000);
+
+    private static final class StubPool implements HikariPoolMXBean {
+        private int activeConnections;
+        private int threadsAwaitingConnection;
+
+        @Override
+        public int getIdleConnections() {
+            return 0;
+        }
+
+        @Override
+        public int getActiveConnections() {
+            return activeConnections;
+        }
+
+        @Override
+        public int getTotalConnections() {
+            return activeConnections;
+        }
+
+        @Override
+        public int getThreadsAwaitingConnection() {
+            return threadsAwaitingConnection;
+        }
+
+        @Override
+        public void softEvictConnections() {
+        }
+
+        @Override
+        public void suspendPool() {
+        }
+
+        @Override
+        public void resumePool() {
+        }
+    }
+
+    private static final class StubDataSource extends HikariDataSource {
+        private final StubPool pool = new StubPool();
+
+        private StubDataSource(int maximumPoolSize) {
+            setPoolName("stub");
+            setMaximumPoolSize(maximumPoolSize);
+            setMinimumIdle(maximumPoolSize);
+        }
+
+        @Override
+        public HikariPoolMXBean getHikariPoolMXBean() {
+            return pool;
+        }
+    }
+
+    private final PoolMetricsTracker tracker = new PoolMetricsTracker();
+    private final List<Integer> resizes = new ArrayList<>();
+
+    @Test
+    @DisplayName("Pool Grown when Threads Wait for Connections")
+    void should_grow_pool_when_threads_wait_for_connections() {
+        StubDataSource dataSource = new StubDataSource(8);
+        AdaptivePoolSizer sizer = new AdaptivePoolSizer(dataSource, tracker, SETTINGS, resizes::add);
+        dataSource.pool.activeConnections = 8;
+        dataSource.pool.threadsAwaitingConnection = 3;
+        tracker.recordConnectionAcquiredNanos(TimeUnit.MILLISECONDS.toNanos(20));
+
+        sizer.adjust();
+
+        assertEquals(10, dataSource.getMaximumPoolSize());
+        assertEquals(List.of(10), resizes);
+    }
+
+    @Test
+    @DisplayName("Pool Shrunk after Consecutive Idle Intervals")
+    void should_shrink_pool_when_idle_for_consecutive_intervals() {
+        StubDataSource dataSource = new StubDataSource(6);
+        AdaptivePoolSizer sizer = new AdaptivePoolSizer(dataSource, tracker, SETTINGS, resizes::add);
+        dataSource.pool.activeConnections = 1;
+
+        sizer.adjust();
+        sizer.adjust();
+        assertEquals(6, dataSource.getMaximumPoolSize());
+        sizer.adjust();
+
+        assertEquals(5, dataSource.getMaximumPoolSize());
+        assertEquals(List.of(5), resizes);
+    }
+
+    @Test
+    @DisplayName("Pool Size Kept within Adaptive Bounds")
+    void should_keep_pool_size_within_bounds_when_adjusting() {
+        StubDataSource grownDataSource = new StubDataSource(12);
+        AdaptivePoolSizer grownSizer = new AdaptivePoolSizer(grownDataSource, tracker, SETTINGS, resizes::add);
+        grownDataSource.pool.activeConnections = 12;
+        grownDataSource.pool.threadsAwaitingConnection = 5;
+        grownSizer.adjust();
+        assertEquals(12, grownDataSource.getMaximumPoolSize());
+
+        StubDataSource shrunkDataSource = new StubDataSource(4);
+        AdaptivePoolSizer shrunkSizer = new AdaptivePoolSizer(shrunkDataSource, tracker, SETTINGS, resizes::add);
+        for (int i = 0; i < 6; i++) {
+            shrunkSizer.adjust();
+        }
+        assertEquals(4, shrunkDataSource.getMaximumPoolSize());
+        assertEquals(List.of(), resizes);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> new AdaptivePoolSizer(new StubDataSource(20), tracker, SETTINGS, resizes::add));
+    }
+}
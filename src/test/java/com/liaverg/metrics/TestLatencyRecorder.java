@@ -0,0 +1,46 @@
+package com.liaverg.metrics;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestLatencyRecorder {
+    private static final int STRIPES = 4;
+
+    @Test
+    @DisplayName("Snapshot Merges Every Stripe Across Repeated Calls")
+    void should_merge_all_stripes_when_snapshotting_repeatedly() throws InterruptedException {
+        LatencyRecorder recorder = new LatencyRecorder(STRIPES);
+        Set<Long> stripesUsed = new HashSet<>();
+        long recorded = 0;
+        for (int round = 0; round < 2; round++) {
+            List<Thread> threads = new ArrayList<>();
+            for (int i = 0; i < 2 * STRIPES; i++) {
+                Thread thread = new Thread(() -> recorder.recordNanos(TimeUnit.MILLISECONDS.toNanos(1)));
+                stripesUsed.add(thread.getId() & (STRIPES - 1));
+                threads.add(thread);
+            }
+            for (Thread thread : threads) {
+                thread.start();
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            recorded += threads.size();
+
+            LatencySnapshot snapshot = recorder.snapshot();
+
+            assertEquals(recorded, snapshot.getCount());
+            assertTrue(snapshot.getMaxMicros() >= 1_000);
+        }
+        assertTrue(stripesUsed.size() > 1);
+    }
+}